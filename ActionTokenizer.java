@@ -0,0 +1,227 @@
+/**
+ * This class splits a line of the data into its parts in one scan, without creating any Strings or regular expressions.
+ *
+ * An action line such as "MrBlue: raises 125 to 225 and is all-in" is read from left to right once:
+ *      The name before ": " is looked up in a PlayerTable while it is scanned, which gives the id of the player acting
+ *      The first word after ": " is the verb, told apart by its first letters: Hand.SMALL_BLIND and Hand.BIG_BLIND for
+ *          "posts small blind" and "posts big blind", Hand.BLIND for any other "posts", Hand.FOLDS, Hand.CHECKS,
+ *          Hand.CALLS, Hand.BETS, Hand.RAISES and Hand.SHOWS, or Hand.OTHER for anything else, e.g. "mucks hand"
+ *      The number after the verb is the amount, e.g. 125. For a raise, the number after " to " is the total, e.g. 225.
+ *          For anything else the total is the same as the amount. Either is -1 if the line has no number
+ *      " and is all-in" after the numbers marks the player as all-in
+ * The header of a hand, e.g. "PokerStars Hand #118058: Hold'em No Limit (50/100) - 2019/07/12 08:47:38 ET", is read
+ * the same way for the number of the hand and the small and big blinds, so they do not have to be written in the code.
+ *
+ * The parts of the last line read are kept in the fields of the tokenizer, so one tokenizer is reused for every line.
+ * Used by HandParser and HandBuilder.
+ */
+public class ActionTokenizer {
+    private int actor = -1;
+    private byte verb = Hand.OTHER;
+    private int amount = -1;
+    private int total = -1;
+    private boolean allIn = false;
+
+    private long id = -1;
+    private int smallBlind = -1;
+    private int bigBlind = -1;
+
+    private int number;
+
+    /**
+     * Function to read an action line
+     * @param line the line to read
+     * @param players the players who may be acting
+     * @return true if the line starts with the name of a player in the table followed by ": ", false otherwise, in which
+     *      case the parts of the last action are unchanged
+     */
+    public boolean readAction(CharSequence line, PlayerTable players) {
+        int id = players.findBefore(line, 0, ": ");
+        if(id == -1) {
+            return false;
+        }
+        actor = id;
+        amount = -1;
+        total = -1;
+        allIn = false;
+        int i = players.getName(id).length() + 2;
+        verb = readVerb(line, i);
+        if(verb == Hand.SHOWS || verb == Hand.OTHER || verb == Hand.FOLDS || verb == Hand.CHECKS) {
+            return true;
+        }
+        while(i < line.length() && !isDigit(line.charAt(i))) {
+            i++;
+        }
+        i = readNumber(line, i);
+        amount = number;
+        total = number;
+        if(verb == Hand.RAISES && HandParser.startsWith(line, " to ", i)) {
+            i = readNumber(line, i + 4);
+            total = number;
+        }
+        allIn = HandParser.startsWith(line, " and is all-in", i);
+        return true;
+    }
+
+    /**
+     * Function to read the header of a hand, e.g. "PokerStars Hand #118058: Hold'em No Limit (50/100) - ..."
+     * Parts that are not found are -1
+     * @param line the line to read
+     */
+    public void readHeader(CharSequence line) {
+        id = -1;
+        smallBlind = -1;
+        bigBlind = -1;
+        int i = 0;
+        while(i < line.length() && line.charAt(i) != '#') {
+            i++;
+        }
+        if(i < line.length()) {
+            int start = i + 1;
+            i = start;
+            long n = 0;
+            while(i < line.length() && isDigit(line.charAt(i))) {
+                n = n * 10 + (line.charAt(i) - '0');
+                i++;
+            }
+            id = i == start ? -1 : n;
+        }
+        while(i < line.length() && line.charAt(i) != '(') {
+            i++;
+        }
+        if(i < line.length()) {
+            i = readNumber(line, i + 1);
+            smallBlind = number;
+            if(i < line.length() && line.charAt(i) == '/') {
+                readNumber(line, i + 1);
+                bigBlind = number;
+            }
+        }
+    }
+
+    /**
+     * Function to return the id of the player in the last action read
+     * @return the id in the PlayerTable
+     */
+    public int getActor() {
+        return actor;
+    }
+
+    /**
+     * Function to return what the player did in the last action read
+     * @return the verb, e.g. Hand.RAISES
+     */
+    public byte getVerb() {
+        return verb;
+    }
+
+    /**
+     * Function to return the first number of the last action read
+     * @return the amount, e.g. 125 for "raises 125 to 225" and 50 for "calls 50", or -1
+     */
+    public int getAmount() {
+        return amount;
+    }
+
+    /**
+     * Function to return the bet the player raised to in the last action read
+     * @return the total, e.g. 225 for "raises 125 to 225", the same as the amount for anything but a raise, or -1
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * Function to check whether the player is all-in after the last action read
+     * @return true if the line ends with " and is all-in"
+     */
+    public boolean isAllIn() {
+        return allIn;
+    }
+
+    /**
+     * Function to return the number of the hand in the last header read
+     * @return the number, or -1
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Function to return the small blind in the last header read
+     * @return the small blind, e.g. 50 for "(50/100)", or -1
+     */
+    public int getSmallBlind() {
+        return smallBlind;
+    }
+
+    /**
+     * Function to return the big blind in the last header read
+     * @return the big blind, e.g. 100 for "(50/100)", or -1
+     */
+    public int getBigBlind() {
+        return bigBlind;
+    }
+
+    /**
+     * Helper function to read a whole number into number
+     * @param line the line with the number
+     * @param start the index of the first digit
+     * @return the index after the last digit. number is -1 if there is no digit at start
+     */
+    private int readNumber(CharSequence line, int start) {
+        int i = start;
+        int n = 0;
+        while(i < line.length() && isDigit(line.charAt(i))) {
+            n = n * 10 + (line.charAt(i) - '0');
+            i++;
+        }
+        number = i == start ? -1 : n;
+        return i;
+    }
+
+    /**
+     * Helper function to tell the verb of an action from its first letters
+     * @param line the line with the action
+     * @param i the index of the first letter of the verb
+     * @return the verb, e.g. Hand.RAISES, or Hand.OTHER
+     */
+    private static byte readVerb(CharSequence line, int i) {
+        if(i >= line.length()) {
+            return Hand.OTHER;
+        }
+        switch(line.charAt(i)) {
+            case 'f':
+                return HandParser.startsWith(line, "folds", i) ? Hand.FOLDS : Hand.OTHER;
+            case 'c':
+                if(HandParser.startsWith(line, "checks", i)) {
+                    return Hand.CHECKS;
+                }
+                return HandParser.startsWith(line, "calls", i) ? Hand.CALLS : Hand.OTHER;
+            case 'b':
+                return HandParser.startsWith(line, "bets", i) ? Hand.BETS : Hand.OTHER;
+            case 'r':
+                return HandParser.startsWith(line, "raises", i) ? Hand.RAISES : Hand.OTHER;
+            case 's':
+                return HandParser.startsWith(line, "shows", i) ? Hand.SHOWS : Hand.OTHER;
+            case 'p':
+                if(HandParser.startsWith(line, "posts small blind", i)) {
+                    return Hand.SMALL_BLIND;
+                } else if(HandParser.startsWith(line, "posts big blind", i)) {
+                    return Hand.BIG_BLIND;
+                }
+                return HandParser.startsWith(line, "posts", i) ? Hand.BLIND : Hand.OTHER;
+            default:
+                return Hand.OTHER;
+        }
+    }
+
+    /**
+     * Helper function to check whether a character is a digit from 0 to 9
+     * @param c the character
+     * @return true if it is a digit
+     */
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,62 @@
+import java.util.Arrays;
+
+/**
+ * This class turns the two characters of a card in the data, such as "Td", into the index of the card.
+ *
+ * The cards are ordered from ace to king. The first 13 are spades, then clubs, diamonds, and hearts, so the index of a
+ * card is 13 * suit + rank, where the ranks are A23456789TJQK and the suits are scdh.
+ *
+ * Every pair of ASCII characters is looked up in a table that is filled once, when the class is loaded, so reading a
+ * card takes one array access and creates no objects. A pair that is not a card, such as "1s" or a card cut off at the
+ * end of a line, maps to -1 so that the caller can report it rather than crash.
+ */
+public class Cards {
+    public static final String RANKS = "A23456789TJQK";
+    public static final String SUITS = "scdh";
+
+    private static final byte[] IDS = new byte[128 * 128];
+
+    static {
+        Arrays.fill(IDS, (byte) -1);
+        for(int suit = 0; suit < SUITS.length(); suit++) {
+            for(int rank = 0; rank < RANKS.length(); rank++) {
+                IDS[RANKS.charAt(rank) << 7 | SUITS.charAt(suit)] = (byte) (suit * 13 + rank);
+            }
+        }
+    }
+
+    /**
+     * Function to return the index of a card from its rank and suit characters
+     * @param rank the rank, e.g. 'T'
+     * @param suit the suit, e.g. 'd'
+     * @return the index of the card (0-51), or -1 if the characters are not a card
+     */
+    public static int getCard(char rank, char suit) {
+        if((rank | suit) >= 128) {
+            return -1;
+        }
+        return IDS[rank << 7 | suit];
+    }
+
+    /**
+     * Function to return the index of the card written at a position in a line
+     * @param line the line with the card
+     * @param i the index of the card's rank in the line. The suit follows it
+     * @return the index of the card (0-51), or -1 if there is no card at that position
+     */
+    public static int getCard(CharSequence line, int i) {
+        if(i < 0 || i + 1 >= line.length()) {
+            return -1;
+        }
+        return getCard(line.charAt(i), line.charAt(i + 1));
+    }
+
+    /**
+     * Function to write a card the way it is written in the data
+     * @param card the index of the card (0-51)
+     * @return the card, e.g. "Td"
+     */
+    public static String toString(int card) {
+        return "" + RANKS.charAt(card % 13) + SUITS.charAt(card / 13);
+    }
+}
@@ -0,0 +1,228 @@
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * This class writes .csv files without turning every number into a String.
+ *
+ * Writing each of the 367 numbers in a row with StringBuilder.append(double) formats every number from scratch, but
+ * almost all of them are exactly 0.0 or 1.0. CsvWriter writes the bytes of each row into one large buffer that is
+ * reused for the whole file:
+ *      0.0 and 1.0 are written as fixed bytes
+ *      Whole numbers such as the seat and the players left are written digit by digit
+ *      Other numbers, such as log base 5 of the bet, take only a few values, so the text of recently written values
+ *          is kept in a small table and only formatted with Double.toString the first time
+ *      The 364 numbers encoding cards in a row of a Dataset are copied from a template of zeros, and the character
+ *          before the decimal point is changed to 1 for each card, since "0.0" and "1.0" have the same length
+ * The text written is exactly the same as the text written by appending each double to a StringBuilder.
+ */
+public class CsvWriter implements Closeable {
+    private static final int BUFFER = 1 << 20;
+    private static final int CACHE = 256;
+    private static final byte[] ZERO = {'0', '.', '0'};
+    private static final byte[] ONE = {'1', '.', '0'};
+    private static final byte[] NEWLINE = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CARD_CELLS = zeros(Dataset.CARDS * 52);
+    private static final byte[] OUTPUT_CELLS = zeros(Dataset.OUTPUTS);
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[BUFFER];
+    private int position = 0;
+    private final long[] cachedBits = new long[CACHE];
+    private final byte[][] cachedText = new byte[CACHE][];
+
+    /**
+     * Constructor for a writer to a new file
+     * @param filename the name of the .csv to write to
+     * @throws IOException if the file cannot be created
+     */
+    public CsvWriter(String filename) throws IOException {
+        this(new FileOutputStream(filename));
+    }
+
+    /**
+     * Constructor for a writer to a stream
+     * @param out the stream to write to. It is closed when the writer is closed
+     */
+    public CsvWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Function to write one row of numbers
+     * @param row the numbers to write
+     * @throws IOException if the file cannot be written
+     */
+    public void writeRow(double[] row) throws IOException {
+        for(int i = 0; i < row.length; i++) {
+            if(i > 0) {
+                put((byte) ',');
+            }
+            writeDouble(row[i]);
+        }
+        put(NEWLINE, 0, NEWLINE.length);
+    }
+
+    /**
+     * Function to write one row of inputs from a Dataset in the layout described in Poker.java
+     * @param data the Dataset
+     * @param row the index of the row
+     * @throws IOException if the file cannot be written
+     */
+    public void writeInput(Dataset data, int row) throws IOException {
+        for(int i = 0; i < Dataset.SCALARS; i++) {
+            writeDouble(data.getScalar(row, i));
+            put((byte) ',');
+        }
+        int start = reserve(CARD_CELLS.length);
+        System.arraycopy(CARD_CELLS, 0, buffer, start, CARD_CELLS.length);
+        for(int slot = 0; slot < Dataset.CARDS; slot++) {
+            int card = data.getCard(row, slot);
+            if(card != -1) {
+                buffer[start + (slot * 52 + card) * 4] = '1';
+            }
+        }
+        for(int c = 0; c < data.getColumns(); c++) {
+            put((byte) ',');
+            writeDouble(data.getExtra(row, c));
+        }
+        put(NEWLINE, 0, NEWLINE.length);
+    }
+
+    /**
+     * Function to write one row of outputs from a Dataset as a one-hot vector of four numbers
+     * @param data the Dataset
+     * @param row the index of the row
+     * @throws IOException if the file cannot be written
+     */
+    public void writeOutput(Dataset data, int row) throws IOException {
+        int start = reserve(OUTPUT_CELLS.length);
+        System.arraycopy(OUTPUT_CELLS, 0, buffer, start, OUTPUT_CELLS.length);
+        int action = data.getAction(row);
+        if(action != -1) {
+            buffer[start + action * 4] = '1';
+        }
+        put(NEWLINE, 0, NEWLINE.length);
+    }
+
+    /**
+     * Function to write one number, formatted as Double.toString would
+     * @param d the number
+     * @throws IOException if the file cannot be written
+     */
+    public void writeDouble(double d) throws IOException {
+        if(d == 0.0) {
+            if(Double.doubleToRawLongBits(d) != 0L) {
+                put((byte) '-');
+            }
+            put(ZERO, 0, 3);
+        } else if(d == 1.0) {
+            put(ONE, 0, 3);
+        } else if(d == Math.rint(d) && Math.abs(d) < 1e7) {
+            writeLong((long) d);
+            put((byte) '.');
+            put((byte) '0');
+        } else {
+            long bits = Double.doubleToRawLongBits(d);
+            int slot = (int) (bits ^ (bits >>> 32)) & (CACHE - 1);
+            byte[] text = cachedText[slot];
+            if(text == null || cachedBits[slot] != bits) {
+                text = Double.toString(d).getBytes(StandardCharsets.US_ASCII);
+                cachedText[slot] = text;
+                cachedBits[slot] = bits;
+            }
+            put(text, 0, text.length);
+        }
+    }
+
+    /**
+     * Function to write any bytes left in the buffer to the file
+     * @throws IOException if the file cannot be written
+     */
+    public void flush() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Helper function to write a whole number digit by digit
+     * @param n the number
+     * @throws IOException if the file cannot be written
+     */
+    private void writeLong(long n) throws IOException {
+        if(n < 0) {
+            put((byte) '-');
+            n = -n;
+        }
+        int start = reserve(20);
+        int end = start;
+        do {
+            buffer[end++] = (byte) ('0' + n % 10);
+            n /= 10;
+        } while(n > 0);
+        for(int i = start, j = end - 1; i < j; i++, j--) {
+            byte b = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = b;
+        }
+        position = end;
+    }
+
+    /**
+     * Helper function to make room in the buffer, writing it to the file if it is too full
+     * @param length the number of bytes needed
+     * @return the index in the buffer where the bytes can be written. The position is moved past them
+     * @throws IOException if the file cannot be written
+     */
+    private int reserve(int length) throws IOException {
+        if(position + length > buffer.length) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+        int start = position;
+        position += length;
+        return start;
+    }
+
+    private void put(byte b) throws IOException {
+        if(position == buffer.length) {
+            out.write(buffer, 0, position);
+            position = 0;
+        }
+        buffer[position++] = b;
+    }
+
+    private void put(byte[] bytes, int from, int length) throws IOException {
+        int start = reserve(length);
+        System.arraycopy(bytes, from, buffer, start, length);
+    }
+
+    /**
+     * Helper function to build the text of a number of zeros separated by commas, e.g. "0.0,0.0,0.0"
+     * @param cells the number of zeros
+     * @return the text as bytes
+     */
+    private static byte[] zeros(int cells) {
+        byte[] text = new byte[cells * 4 - 1];
+        Arrays.fill(text, (byte) ',');
+        for(int i = 0; i < cells; i++) {
+            text[i * 4] = '0';
+            text[i * 4 + 1] = '.';
+            text[i * 4 + 2] = '0';
+        }
+        return text;
+    }
+}
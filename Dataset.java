@@ -0,0 +1,421 @@
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * This class holds the rows of inputs and outputs in a sparse form.
+ *
+ * Each input row exported for the neural network has 367 numbers, but at most 7 of the 364 numbers encoding cards are
+ * non-zero. Rather than keeping every row as 367 doubles (about 3 KB per row), a Dataset keeps for each row:
+ *      The three numbers at the start of the row (seat, players left and log base 5 of the highest bet)
+ *      The index (0-51) of each of the seven cards: the two hole cards and the five community cards.
+ *          The cards are ordered from ace to king. The first 13 are spades, then clubs, diamonds, and hearts
+ *          A card that has not been dealt yet is stored as -1 and exported as all zeros
+ *      The index of the action taken: 0 is folding, 1 is checking, 2 is calling, and 3 is raising.
+ *          An action that could not be read is stored as -1 and exported as all zeros
+ * This takes 32 bytes per row. The rows are only expanded into one-hot vectors one at a time, when they are exported.
+ *
+ * The number of rows does not need to be known in advance. Rows are appended to primitive arrays, and an array that is
+ * full is copied into one twice as large, so the data only needs to be read once and can come from a stream that
+ * cannot be read twice, such as standard input. Datasets filled by different threads are joined with addAll.
+ *
+ * Extra columns of inputs, such as the strength of the player's hand (see HandEvaluator.java), can be added with
+ * addColumn. Each has a name and a double for every row, and is exported after the 367 numbers in the order the columns
+ * were added, so a row has getInputCount() numbers.
+ */
+public class Dataset {
+    public static final int SCALARS = 3;
+    public static final int CARDS = 7;
+    public static final int INPUTS = SCALARS + CARDS * 52;
+    public static final int OUTPUTS = 4;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    /**
+     * The most rows a Dataset can hold: the cards take CARDS bytes per row, the widest of the arrays, and an array can
+     * have at most a little under Integer.MAX_VALUE entries
+     */
+    static final int MAX_ROWS = (Integer.MAX_VALUE - 8) / CARDS;
+
+    private double[] scalars;
+    private byte[] cards;
+    private byte[] actions;
+    private int size = 0;
+    private String[] names = new String[0];
+    private double[][] extras = new double[0][];
+
+    /**
+     * Constructor for an empty Dataset
+     */
+    public Dataset() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Constructor for an empty Dataset with room for a number of rows before its arrays need to grow
+     * @param capacity the number of rows, at most MAX_ROWS
+     */
+    public Dataset(int capacity) {
+        if(capacity > MAX_ROWS) {
+            throw new OutOfMemoryError("Too many rows");
+        }
+        capacity = Math.max(capacity, 1);
+        scalars = new double[capacity * SCALARS];
+        cards = new byte[capacity * CARDS];
+        actions = new byte[capacity];
+    }
+
+    /**
+     * Function to return the number of rows
+     * @return the number of rows
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Function to add one row at the end
+     * @param seat the seat of the player
+     * @param playersLeft the number of players left
+     * @param bet log base 5 of the highest bet
+     * @param hole the indices of the two hole cards, -1 for a card not dealt
+     * @param board the indices of the five community cards, -1 for a card not yet dealt
+     * @param action the index of the action taken, or -1 if it is unknown
+     * @return the index of the row
+     */
+    public int add(double seat, double playersLeft, double bet, byte[] hole, byte[] board, int action) {
+        ensureCapacity(size + 1);
+        int r = size;
+        scalars[r * SCALARS] = seat;
+        scalars[r * SCALARS + 1] = playersLeft;
+        scalars[r * SCALARS + 2] = bet;
+        cards[r * CARDS] = hole[0];
+        cards[r * CARDS + 1] = hole[1];
+        System.arraycopy(board, 0, cards, r * CARDS + 2, 5);
+        actions[r] = (byte) action;
+        for(int c = 0; c < extras.length; c++) {
+            extras[c][r] = 0;
+        }
+        size++;
+        return r;
+    }
+
+    /**
+     * Function to add a copy of a row of another Dataset with the same columns at the end
+     * @param other the Dataset with the row
+     * @param row the index of the row in the other Dataset
+     * @return the index of the new row
+     */
+    public int add(Dataset other, int row) {
+        ensureCapacity(size + 1);
+        size++;
+        set(size - 1, other, row);
+        return size - 1;
+    }
+
+    /**
+     * Function to replace a row with a copy of a row of another Dataset with the same columns
+     * @param row the index of the row to replace
+     * @param other the Dataset with the row to copy
+     * @param from the index of the row in the other Dataset
+     */
+    public void set(int row, Dataset other, int from) {
+        System.arraycopy(other.scalars, from * SCALARS, scalars, row * SCALARS, SCALARS);
+        System.arraycopy(other.cards, from * CARDS, cards, row * CARDS, CARDS);
+        actions[row] = other.actions[from];
+        for(int c = 0; c < extras.length; c++) {
+            extras[c][row] = other.extras[c][from];
+        }
+    }
+
+    /**
+     * Function to compute a hash of a row from its sparse form, so that equal rows have the same hash
+     * @param row the index of the row
+     * @return the hash
+     */
+    public int hashRow(int row) {
+        long hash = actions[row];
+        for(int i = row * SCALARS; i < (row + 1) * SCALARS; i++) {
+            hash = 31 * hash + Double.doubleToLongBits(scalars[i]);
+        }
+        for(int i = row * CARDS; i < (row + 1) * CARDS; i++) {
+            hash = 31 * hash + cards[i];
+        }
+        for(int c = 0; c < extras.length; c++) {
+            hash = 31 * hash + Double.doubleToLongBits(extras[c][row]);
+        }
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    /**
+     * Function to check whether a row is the same as a row of another Dataset with the same columns, i.e. whether both
+     * are exported as the same inputs and outputs
+     * @param row the index of the row
+     * @param other the Dataset with the other row
+     * @param from the index of the row in the other Dataset
+     * @return true if the rows are the same
+     */
+    public boolean sameRow(int row, Dataset other, int from) {
+        if(actions[row] != other.actions[from]) {
+            return false;
+        }
+        for(int i = 0; i < SCALARS; i++) {
+            if(Double.doubleToLongBits(scalars[row * SCALARS + i]) != Double.doubleToLongBits(other.scalars[from * SCALARS + i])) {
+                return false;
+            }
+        }
+        for(int i = 0; i < CARDS; i++) {
+            if(cards[row * CARDS + i] != other.cards[from * CARDS + i]) {
+                return false;
+            }
+        }
+        for(int c = 0; c < extras.length; c++) {
+            if(Double.doubleToLongBits(extras[c][row]) != Double.doubleToLongBits(other.extras[c][from])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Function to remove every row. The arrays and the columns are kept, so the Dataset can be filled again without
+     * growing its arrays
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Function to add every row of another Dataset at the end
+     * @param other the Dataset with the rows to add
+     */
+    public void addAll(Dataset other) {
+        if(!Arrays.equals(names, other.names)) {
+            throw new IllegalArgumentException("Datasets with columns " + Arrays.toString(names) + " and " + Arrays.toString(other.names) + " cannot be joined");
+        }
+        ensureCapacity(size + other.size);
+        System.arraycopy(other.scalars, 0, scalars, size * SCALARS, other.size * SCALARS);
+        System.arraycopy(other.cards, 0, cards, size * CARDS, other.size * CARDS);
+        System.arraycopy(other.actions, 0, actions, size, other.size);
+        for(int c = 0; c < extras.length; c++) {
+            System.arraycopy(other.extras[c], 0, extras[c], size, other.size);
+        }
+        size += other.size;
+    }
+
+    /**
+     * Function to join several Datasets into one, in order
+     * @param parts the Datasets to join
+     * @return a new Dataset with the rows of every part
+     */
+    public static Dataset concat(Dataset[] parts) {
+        long total = 0;
+        for(Dataset part : parts) {
+            total += part.size;
+        }
+        Dataset data = new Dataset((int) Math.min(total, MAX_ROWS));
+        if(parts.length > 0) {
+            for(String name : parts[0].names) {
+                data.addColumn(name);
+            }
+        }
+        for(Dataset part : parts) {
+            data.addAll(part);
+        }
+        return data;
+    }
+
+    /**
+     * Helper function to grow the arrays, at least doubling them, so that they can hold a number of rows
+     * @param rows the number of rows needed
+     */
+    private void ensureCapacity(int rows) {
+        if(rows <= actions.length) {
+            return;
+        }
+        if(rows < 0 || rows > MAX_ROWS) {
+            throw new OutOfMemoryError("Too many rows");
+        }
+        int capacity = (int) Math.min(MAX_ROWS, Math.max((long) actions.length * 2, rows));
+        scalars = Arrays.copyOf(scalars, capacity * SCALARS);
+        cards = Arrays.copyOf(cards, capacity * CARDS);
+        actions = Arrays.copyOf(actions, capacity);
+        for(int c = 0; c < extras.length; c++) {
+            extras[c] = Arrays.copyOf(extras[c], capacity);
+        }
+    }
+
+    /**
+     * Function to add an extra column of inputs. Every row has 0 in the new column until it is set
+     * @param name the name of the column, e.g. "rank"
+     * @return the index of the column, for getExtra and setExtra
+     */
+    public int addColumn(String name) {
+        names = Arrays.copyOf(names, names.length + 1);
+        names[names.length - 1] = name;
+        extras = Arrays.copyOf(extras, extras.length + 1);
+        extras[extras.length - 1] = new double[actions.length];
+        return extras.length - 1;
+    }
+
+    /**
+     * Function to return the number of extra columns of inputs
+     * @return the number of extra columns
+     */
+    public int getColumns() {
+        return extras.length;
+    }
+
+    /**
+     * Function to return the name of an extra column of inputs
+     * @param column the index of the column
+     * @return the name of the column
+     */
+    public String getColumnName(int column) {
+        return names[column];
+    }
+
+    /**
+     * Function to return the index of an extra column of inputs
+     * @param name the name of the column
+     * @return the index of the column, or -1 if there is no column with that name
+     */
+    public int getColumn(String name) {
+        for(int c = 0; c < names.length; c++) {
+            if(names[c].equals(name)) {
+                return c;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Function to return the number of inputs in each row: the 367 numbers and the extra columns
+     * @return the number of inputs
+     */
+    public int getInputCount() {
+        return INPUTS + extras.length;
+    }
+
+    /**
+     * Function to return the value of an extra column in a row
+     * @param row the index of the row
+     * @param column the index of the column
+     * @return the value
+     */
+    public double getExtra(int row, int column) {
+        return extras[column][row];
+    }
+
+    /**
+     * Function to set the value of an extra column in a row
+     * @param row the index of the row
+     * @param column the index of the column
+     * @param value the value
+     */
+    public void setExtra(int row, int column, double value) {
+        extras[column][row] = value;
+    }
+
+    /**
+     * Function to return one of the three numbers at the start of a row
+     * @param row the index of the row
+     * @param i 0 for the seat, 1 for the players left and 2 for the bet
+     * @return the number
+     */
+    public double getScalar(int row, int i) {
+        return scalars[row * SCALARS + i];
+    }
+
+    /**
+     * Function to return the index of one of the cards in a row
+     * @param row the index of the row
+     * @param slot 0 and 1 for the hole cards, 2 to 6 for the community cards
+     * @return the index of the card (0-51), or -1 if it has not been dealt
+     */
+    public int getCard(int row, int slot) {
+        return cards[row * CARDS + slot];
+    }
+
+    /**
+     * Function to return the action taken in a row
+     * @param row the index of the row
+     * @return the index of the action, or -1 if it is unknown
+     */
+    public int getAction(int row) {
+        return actions[row];
+    }
+
+    /**
+     * Function to expand one row of inputs into the 367 numbers described in Poker.java, followed by the extra columns
+     * @param row the index of the row
+     * @param input the array of getInputCount() numbers to write to
+     */
+    public void getInput(int row, double[] input) {
+        Arrays.fill(input, 0);
+        for(int i = 0; i < SCALARS; i++) {
+            input[i] = getScalar(row, i);
+        }
+        for(int slot = 0; slot < CARDS; slot++) {
+            int card = getCard(row, slot);
+            if(card != -1) {
+                input[SCALARS + slot * 52 + card] = 1.0;
+            }
+        }
+        for(int c = 0; c < extras.length; c++) {
+            input[INPUTS + c] = extras[c][row];
+        }
+    }
+
+    /**
+     * Function to expand one row of outputs into a one-hot vector of four numbers
+     * @param row the index of the row
+     * @param output the array of 4 numbers to write to
+     */
+    public void getOutput(int row, double[] output) {
+        Arrays.fill(output, 0);
+        int action = getAction(row);
+        if(action != -1) {
+            output[action] = 1.0;
+        }
+    }
+
+    /**
+     * Function to expand every row of inputs into a 2-D array. This uses as much memory as the dense format
+     * @return a 2-D array where each row has getInputCount() numbers
+     */
+    public double[][] getInputs() {
+        double[][] inputs = new double[size][getInputCount()];
+        for(int i = 0; i < size; i++) {
+            getInput(i, inputs[i]);
+        }
+        return inputs;
+    }
+
+    /**
+     * Function to expand every row of outputs into a 2-D array
+     * @return a 2-D array where each row has 4 numbers
+     */
+    public double[][] getOutputs() {
+        double[][] outputs = new double[size][OUTPUTS];
+        for(int i = 0; i < size; i++) {
+            getOutput(i, outputs[i]);
+        }
+        return outputs;
+    }
+
+    /**
+     * Function to export the inputs and outputs as two .csv files, writing the cards of each row straight from their
+     * indices with CsvWriter
+     * @param filename1 the name of the .csv to export the inputs to
+     * @param filename2 the name of the .csv to export the outputs to
+     */
+    public void exportToCSV(String filename1, String filename2) {
+        try (CsvWriter writer1 = new CsvWriter(filename1); CsvWriter writer2 = new CsvWriter(filename2)) {
+            for(int i = 0; i < size; i++) {
+                writer1.writeInput(this, i);
+                writer2.writeOutput(this, i);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
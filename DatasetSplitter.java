@@ -0,0 +1,224 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Scanner;
+import java.util.SplittableRandom;
+
+/**
+ * This class splits the data into a training set and a validation set while it is read, and writes both as .csv files
+ * in one pass, with the rows of each set shuffled.
+ *
+ * The split is made by hand rather than by row, so that the plays of one hand are never in both sets (a hand in the
+ * training set would otherwise leak into the validation set through its other plays). Each line is passed to a
+ * HandParser that adds the rows of the current hand to a small Dataset. When the next "PokerStars Hand #" line starts,
+ * every row of the hand goes to the same set, chosen from the number of the hand and the seed:
+ *      The number of the hand is mixed with the seed into 64 random-looking bits (as in SplittableRandom)
+ *      The hand is in the validation set if those bits, as a number between 0 and 1, are less than the fraction of
+ *          hands wanted in the validation set
+ * so the same hand always goes to the same set, whatever order the files are read in.
+ *
+ * The rows are shuffled with a shuffle buffer for each set, so only a fixed number of rows are kept in memory however
+ * large the data is. Each buffer is filled with the first rows of its set. After that, each new row takes the place of
+ * a row picked at random from the buffer, which is written out. At the end, the rows left in the buffers are written in a
+ * random order. A buffer at least as large as the set gives a full shuffle; a smaller buffer mixes each row with the
+ * rows around it in the data. The random numbers come from the seed, so the same data gives the same files.
+ */
+public class DatasetSplitter implements Closeable {
+    private final double validation;
+    private final long seed;
+    private final Dataset hand;
+    private final HandParser parser;
+    private final ActionTokenizer tokenizer = new ActionTokenizer();
+    private final ShuffleBuffer training;
+    private final ShuffleBuffer validating;
+    private ShuffleBuffer current = null;
+    private long hands = 0;
+
+    /**
+     * Constructor for a splitter that writes to four .csv files
+     * @param players the names of the players whose actions are recorded, or null to record every player
+     * @param state true to add the columns of the state of the betting to each row (see HandParser.addColumns)
+     * @param validation the fraction of hands put in the validation set, e.g. 0.1
+     * @param seed the seed of the split and the shuffle
+     * @param buffer the number of rows kept in memory to shuffle each set
+     * @param files the names of the files for the inputs and outputs of the training set, then the inputs and outputs of
+     *      the validation set
+     * @throws IOException if a file cannot be opened
+     */
+    public DatasetSplitter(String[] players, boolean state, double validation, long seed, int buffer, String[] files) throws IOException {
+        this.validation = validation;
+        this.seed = seed;
+        this.hand = new Dataset();
+        if(state) {
+            HandParser.addColumns(hand);
+        }
+        this.parser = new HandParser(players, hand);
+        SplittableRandom random = new SplittableRandom(seed);
+        this.training = new ShuffleBuffer(buffer, hand, random.split(), files[0], files[1]);
+        this.validating = new ShuffleBuffer(buffer, hand, random.split(), files[2], files[3]);
+    }
+
+    /**
+     * Function to read every line of a file with HandReader
+     * @param file the file with the data
+     * @throws IOException if the file cannot be read or a row cannot be written
+     */
+    public void parse(File file) throws IOException {
+        try (HandReader reader = new HandReader(file)) {
+            while(reader.nextLine()) {
+                parseLine(reader.line());
+            }
+        }
+    }
+
+    /**
+     * Function to read every line of a Scanner, e.g. on standard input
+     * @param scanner a scanner to sift through the data
+     * @throws IOException if a row cannot be written
+     */
+    public void parse(Scanner scanner) throws IOException {
+        while(scanner.hasNextLine()) {
+            parseLine(scanner.nextLine());
+        }
+    }
+
+    /**
+     * Function to read one line of the data. The rows of a hand are sent to a set when the next hand starts
+     * @param line the line to read
+     * @throws IOException if a row cannot be written
+     */
+    public void parseLine(CharSequence line) throws IOException {
+        if(HandParser.startsWith(line, "PokerStars Hand #", 0)) {
+            endHand();
+            tokenizer.readHeader(line);
+            long id = tokenizer.getId() == -1 ? hands : tokenizer.getId();
+            current = isValidation(id, seed, validation) ? validating : training;
+            hands++;
+        }
+        parser.parseLine(line);
+    }
+
+    /**
+     * Function to send the rows of the last hand to its set and write every row left in the buffers
+     * @throws IOException if a row cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        endHand();
+        training.close();
+        validating.close();
+    }
+
+    /**
+     * Function to return the number of rows written to the training set so far
+     * @return the number of rows
+     */
+    public long getTrainingRows() {
+        return training.rows;
+    }
+
+    /**
+     * Function to return the number of rows written to the validation set so far
+     * @return the number of rows
+     */
+    public long getValidationRows() {
+        return validating.rows;
+    }
+
+    /**
+     * Function to check which set a hand belongs to
+     * @param id the number of the hand
+     * @param seed the seed of the split
+     * @param validation the fraction of hands put in the validation set
+     * @return true if the hand is in the validation set
+     */
+    public static boolean isValidation(long id, long seed, double validation) {
+        long z = seed + id * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z = z ^ (z >>> 31);
+        return (z >>> 11) * 0x1.0p-53 < validation;
+    }
+
+    /**
+     * Helper function to send the rows of the current hand to its set
+     * @throws IOException if a row cannot be written
+     */
+    private void endHand() throws IOException {
+        if(current != null) {
+            for(int row = 0; row < hand.size(); row++) {
+                current.add(hand, row);
+            }
+        }
+        hand.clear();
+    }
+
+    /**
+     * The rows of one set waiting to be written, and the files they are written to
+     */
+    private static class ShuffleBuffer implements Closeable {
+        private final Dataset buffer;
+        private final int capacity;
+        private final SplittableRandom random;
+        private final CsvWriter inputs;
+        private final CsvWriter outputs;
+        private long rows = 0;
+
+        private ShuffleBuffer(int capacity, Dataset columns, SplittableRandom random, String filename1, String filename2) throws IOException {
+            this.capacity = Math.max(1, capacity);
+            this.buffer = new Dataset(Math.min(this.capacity, 1 << 16));
+            for(int c = 0; c < columns.getColumns(); c++) {
+                buffer.addColumn(columns.getColumnName(c));
+            }
+            this.random = random;
+            this.inputs = new CsvWriter(filename1);
+            this.outputs = new CsvWriter(filename2);
+        }
+
+        /**
+         * Function to add a row, writing a random row from the buffer if it is full
+         * @param data the Dataset with the row
+         * @param row the index of the row
+         * @throws IOException if a row cannot be written
+         */
+        private void add(Dataset data, int row) throws IOException {
+            if(buffer.size() < capacity) {
+                buffer.add(data, row);
+                return;
+            }
+            int i = random.nextInt(capacity);
+            write(i);
+            buffer.set(i, data, row);
+        }
+
+        /**
+         * Function to write every row left in the buffer in a random order and close the files
+         * @throws IOException if a row cannot be written
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                for(int n = buffer.size(); n > 0; n--) {
+                    int i = random.nextInt(n);
+                    write(i);
+                    buffer.set(i, buffer, n - 1);
+                }
+                buffer.clear();
+            } finally {
+                inputs.close();
+                outputs.close();
+            }
+        }
+
+        /**
+         * Helper function to write one row of the buffer
+         * @param i the index of the row
+         * @throws IOException if the row cannot be written
+         */
+        private void write(int i) throws IOException {
+            inputs.writeInput(buffer, i);
+            outputs.writeOutput(buffer, i);
+            rows++;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+import java.util.Arrays;
+
+/**
+ * This class keeps each distinct row of a Dataset once, with the number of times it was seen, so that the files exported
+ * for the neural network are smaller and faster to train on without losing any information.
+ *
+ * Many rows are the same, e.g. a fold before the flop from the same seat with the same hole cards. A row seen n times
+ * teaches the network the same as the row seen once with a weight of n, so the duplicates can be replaced with a
+ * "weight" column, passed to model.fit as the sample_weight. The rows are counted in an open-addressing hash table:
+ *      The hash of a row is computed from its sparse form (see Dataset.hashRow), without expanding it into 367 numbers
+ *      Each slot of the table holds the index of a distinct row plus one, or 0 if it is empty. A row is found by stepping
+ *          from the slot of its hash to the next slot until it finds the same row or an empty slot
+ *      The count of each distinct row is kept in an int array next to the rows
+ *      The table is doubled when it is half full
+ * The distinct rows are kept in the order they were first seen.
+ */
+public class Deduplicator {
+    private final Dataset rows;
+    private int[] counts = new int[1024];
+    private int[] hashes = new int[1024];
+    private int[] slots = new int[2048];
+    private long seen = 0;
+
+    /**
+     * Constructor for an empty table of rows
+     * @param columns a Dataset with the extra columns the rows will have
+     */
+    public Deduplicator(Dataset columns) {
+        rows = new Dataset();
+        for(int c = 0; c < columns.getColumns(); c++) {
+            rows.addColumn(columns.getColumnName(c));
+        }
+    }
+
+    /**
+     * Function to count a row, adding it to the distinct rows if it has not been seen
+     * @param data the Dataset with the row, with the same extra columns as the table
+     * @param row the index of the row
+     * @return the index of the row in the distinct rows
+     */
+    public int add(Dataset data, int row) {
+        seen++;
+        int hash = data.hashRow(row);
+        int mask = slots.length - 1;
+        int slot = mix(hash) & mask;
+        while(slots[slot] != 0) {
+            int i = slots[slot] - 1;
+            if(hashes[i] == hash && rows.sameRow(i, data, row)) {
+                counts[i]++;
+                return i;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int i = rows.add(data, row);
+        if(i == counts.length) {
+            counts = Arrays.copyOf(counts, i * 2);
+            hashes = Arrays.copyOf(hashes, i * 2);
+        }
+        counts[i] = 1;
+        hashes[i] = hash;
+        slots[slot] = i + 1;
+        if(rows.size() * 2 > slots.length) {
+            rehash();
+        }
+        return i;
+    }
+
+    /**
+     * Function to count every row of a Dataset
+     * @param data the Dataset, with the same extra columns as the table
+     */
+    public void addAll(Dataset data) {
+        for(int row = 0; row < data.size(); row++) {
+            add(data, row);
+        }
+    }
+
+    /**
+     * Function to return the distinct rows. Extra columns may still be added to it before addColumn
+     * @return the Dataset of distinct rows, in the order they were first seen
+     */
+    public Dataset getRows() {
+        return rows;
+    }
+
+    /**
+     * Function to return the number of times a distinct row was seen
+     * @param row the index of the row in the distinct rows
+     * @return the count
+     */
+    public int getCount(int row) {
+        return counts[row];
+    }
+
+    /**
+     * Function to return the number of rows counted, including the duplicates
+     * @return the number of rows
+     */
+    public long getSeen() {
+        return seen;
+    }
+
+    /**
+     * Function to add the count of each distinct row as an extra column of the distinct rows, named "weight"
+     * It should be added last, so that it is the last column of the inputs, and removed from the inputs in python
+     */
+    public void addColumn() {
+        int column = rows.addColumn("weight");
+        for(int row = 0; row < rows.size(); row++) {
+            rows.setExtra(row, column, counts[row]);
+        }
+    }
+
+    /**
+     * Helper function to double the number of slots and put every row back in
+     */
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for(int i = 0; i < rows.size(); i++) {
+            int slot = mix(hashes[i]) & mask;
+            while(slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = i + 1;
+        }
+    }
+
+    /**
+     * Helper function to spread the bits of a hash, so that rows that differ only in their last cards do not fall in
+     * neighbouring slots
+     * @param hash the hash
+     * @return the mixed hash
+     */
+    private static int mix(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
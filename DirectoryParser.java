@@ -0,0 +1,134 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class parses many hand history files at once and merges their rows into one dataset.
+ *
+ * The data for each session of poker is kept in its own file. Rather than running Poker.java once for every file,
+ * DirectoryParser takes a directory (every .txt file in it is read) or a glob such as sessions/pluribus_*.txt, and
+ * parses the files on a fixed number of worker threads. Each file is read with HandReader, or loaded with HandCache if
+ * the cache is turned on.
+ *
+ * Like ParallelParser, each file adds its rows to its own Dataset, and the Datasets are joined in the order of the
+ * files, sorted by name, so the merged rows do not depend on which thread finishes first.
+ * A line is printed as each file finishes so that the progress of a long run can be followed.
+ */
+public class DirectoryParser {
+    private final List<File> files;
+    private final String[] players;
+    private final int threads;
+    private final boolean cache;
+    private final boolean state;
+
+    /**
+     * Constructor for a parser of many files
+     * @param files the files with the data
+     * @param players the names of the players whose actions are recorded, or null to record every player
+     * @param threads the number of files to read at once
+     * @param cache true to load the hands in each file with HandCache instead of reading the text
+     * @param state true to add the columns of the state of the betting to each row (see HandParser.addColumns)
+     */
+    public DirectoryParser(List<File> files, String[] players, int threads, boolean cache, boolean state) {
+        this.files = files;
+        this.players = players;
+        this.threads = threads;
+        this.cache = cache;
+        this.state = state;
+    }
+
+    /**
+     * Function to check whether a path names many files (a directory or a glob) rather than one file
+     * @param path the path to check
+     * @return true if the path is a directory or contains a glob character
+     */
+    public static boolean isMany(String path) {
+        return new File(path).isDirectory() || path.indexOf('*') != -1 || path.indexOf('?') != -1 || path.indexOf('{') != -1;
+    }
+
+    /**
+     * Function to list the files named by a directory or a glob, sorted by name
+     * @param path a directory, in which case every .txt file in it is listed, or a glob in the last part of the path
+     * @return the files
+     * @throws IOException if the directory cannot be read
+     */
+    public static List<File> findFiles(String path) throws IOException {
+        Path dir;
+        String glob;
+        if(new File(path).isDirectory()) {
+            dir = Paths.get(path);
+            glob = "*.txt";
+        } else {
+            Path p = Paths.get(path);
+            dir = p.getParent() == null ? Paths.get(".") : p.getParent();
+            glob = p.getFileName().toString();
+        }
+        List<File> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, glob)) {
+            for(Path p : stream) {
+                if(Files.isRegularFile(p)) {
+                    files.add(p.toFile());
+                }
+            }
+        }
+        Collections.sort(files);
+        return files;
+    }
+
+    /**
+     * Function to parse every file on the worker threads
+     * @return a Dataset with every play in every file, in the order of the files
+     * @throws IOException if a file cannot be read
+     */
+    public Dataset parse() throws IOException {
+        Dataset[] parts = new Dataset[files.size()];
+        AtomicInteger done = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, files.size())), Metrics.threadFactory());
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for(int i = 0; i < files.size(); i++) {
+                int f = i;
+                futures.add(workers.submit(() -> {
+                    File file = files.get(f);
+                    Dataset part = new Dataset();
+                    if(state) {
+                        HandParser.addColumns(part);
+                    }
+                    if(cache) {
+                        HandParser.parse(HandCache.load(file), players, part);
+                    } else {
+                        HandReader.parse(file, players, part);
+                    }
+                    parts[f] = part;
+                    System.out.println("Parsed " + file.getName() + " (" + done.incrementAndGet() + " of " + files.size() + "): " + part.size() + " plays");
+                    return null;
+                }));
+            }
+            for(Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while parsing", e);
+        } catch (ExecutionException e) {
+            if(e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+        return Dataset.concat(parts);
+    }
+}
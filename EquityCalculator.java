@@ -0,0 +1,184 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This class estimates the equity of the player's hand at each play: the share of the pot the hand would win on average
+ * if every player left stayed in to the showdown, against opponents holding random cards.
+ *
+ * The equity is estimated by dealing the rest of the hand many times (Monte Carlo rollouts): each rollout deals two
+ * random cards to each opponent and the community cards not yet dealt from the cards that are not known, and ranks every
+ * hand with HandEvaluator. The player wins 1 if their hand is the best, 1/n if it ties with n-1 opponents, and 0 if an
+ * opponent's hand is better. The equity is the mean over the rollouts.
+ *
+ * Rather than always dealing the same number of rollouts, the rollouts stop once the estimate is close enough: every 256
+ * rollouts, after at least MIN_ROLLOUTS, the 95% confidence interval of the mean is checked and the rollouts stop if it
+ * is within the tolerance on each side. Clear favourites and clear underdogs are settled after a few hundred rollouts,
+ * and only close hands need the maximum.
+ *
+ * addColumn estimates the equity of every row of a Dataset as an extra column. The number of opponents is the number of
+ * players left minus one (see Poker.getPl). The rows are split into blocks of 256 that are estimated on several threads,
+ * and each block gets its own SplittableRandom split from one made from the seed before any thread starts, so the column
+ * is the same however the blocks are shared between the threads. Plays before the flop against at most 5 opponents can
+ * be looked up in a PreflopTable instead, which is most of the rows.
+ */
+public class EquityCalculator {
+    public static final int MIN_ROLLOUTS = 512;
+
+    private static final int BLOCK = 256;
+    private static final int CHECK = 256;
+
+    /**
+     * Function to estimate the equity of a hand
+     * @param hole the player's hole cards, with the bit (1L << card) set for each card (see HandEvaluator.java)
+     * @param board the community cards dealt so far, in the same form
+     * @param opponents the number of opponents, from 1 to 9
+     * @param random the source of random numbers
+     * @param maxRollouts the most rollouts to deal
+     * @param tolerance how close to the equity the estimate must be, e.g. 0.01, at 95% confidence
+     * @return the equity, between 0 and 1
+     */
+    public static double equity(long hole, long board, int opponents, SplittableRandom random, int maxRollouts, double tolerance) {
+        long known = hole | board;
+        byte[] deck = new byte[52];
+        int n = 0;
+        for(int card = 0; card < 52; card++) {
+            if((known & (1L << card)) == 0) {
+                deck[n++] = (byte) card;
+            }
+        }
+        int missing = Math.max(0, 5 - Long.bitCount(board));
+        int needed = missing + 2 * opponents;
+        if(needed > n) {
+            throw new IllegalArgumentException("There are not enough cards left for " + opponents + " opponents");
+        }
+
+        double sum = 0;
+        double squares = 0;
+        int rollouts = 0;
+        while(rollouts < maxRollouts) {
+            for(int i = 0; i < needed; i++) {
+                int j = i + random.nextInt(n - i);
+                byte swap = deck[i];
+                deck[i] = deck[j];
+                deck[j] = swap;
+            }
+            long table = board;
+            for(int i = 0; i < missing; i++) {
+                table |= 1L << deck[i];
+            }
+            int rank = HandEvaluator.evaluate(hole | table);
+            int ties = 1;
+            boolean lost = false;
+            for(int o = missing; o < needed; o += 2) {
+                int other = HandEvaluator.evaluate(table | 1L << deck[o] | 1L << deck[o + 1]);
+                if(other > rank) {
+                    lost = true;
+                    break;
+                } else if(other == rank) {
+                    ties++;
+                }
+            }
+            double share = lost ? 0 : 1.0 / ties;
+            sum += share;
+            squares += share * share;
+            rollouts++;
+
+            if(rollouts >= MIN_ROLLOUTS && rollouts % CHECK == 0) {
+                double mean = sum / rollouts;
+                double variance = Math.max(0, squares / rollouts - mean * mean);
+                if(1.96 * Math.sqrt(variance / rollouts) <= tolerance) {
+                    break;
+                }
+            }
+        }
+        return sum / rollouts;
+    }
+
+    /**
+     * Function to add the equity of the player's hand in each row as an extra column of a Dataset, named "equity"
+     * Rows without both hole cards get an equity of 0
+     * @param data the dataset
+     * @param threads the number of threads to estimate the rows on
+     * @param seed the seed of the random numbers, so that the column can be made again
+     * @param maxRollouts the most rollouts to deal for each row
+     * @param tolerance how close to the equity each estimate must be, e.g. 0.01, at 95% confidence
+     * @param preflop the table to look up plays before the flop in, or null to estimate them too
+     * @throws InterruptedException if the thread is interrupted while waiting for the other threads
+     */
+    public static void addColumn(Dataset data, int threads, long seed, int maxRollouts, double tolerance, PreflopTable preflop) throws InterruptedException {
+        int column = data.addColumn("equity");
+        SplittableRandom root = new SplittableRandom(seed);
+        ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, threads), Metrics.threadFactory());
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for(int start = 0; start < data.size(); start += BLOCK) {
+                int from = start;
+                int to = Math.min(data.size(), start + BLOCK);
+                SplittableRandom random = root.split();
+                futures.add(workers.submit(() -> {
+                    for(int row = from; row < to; row++) {
+                        data.setExtra(row, column, equity(data, row, random, maxRollouts, tolerance, preflop));
+                    }
+                }));
+            }
+            for(Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Helper function to estimate the equity of the player's hand in a row of a Dataset
+     * @param data the dataset
+     * @param row the index of the row
+     * @param random the source of random numbers
+     * @param maxRollouts the most rollouts to deal
+     * @param tolerance how close to the equity the estimate must be
+     * @param preflop the table to look up plays before the flop in, or null
+     * @return the equity, or 0 if the row does not have both hole cards
+     */
+    private static double equity(Dataset data, int row, SplittableRandom random, int maxRollouts, double tolerance, PreflopTable preflop) {
+        if(data.getCard(row, 0) == -1 || data.getCard(row, 1) == -1) {
+            return 0;
+        }
+        long hole = 1L << data.getCard(row, 0) | 1L << data.getCard(row, 1);
+        long board = HandEvaluator.getCards(data, row) & ~hole;
+        int opponents = Math.max(1, Math.min(9, (int) data.getScalar(row, 1) - 1));
+        if(board == 0 && preflop != null && opponents <= PreflopTable.OPPONENTS) {
+            return preflop.getEquity(data.getCard(row, 0), data.getCard(row, 1), opponents);
+        }
+        return equity(hole, board, opponents, random, maxRollouts, tolerance);
+    }
+
+    public static void main(String [] args) {
+        /*
+         * Estimating the equity of a few hands to check the estimates against known values, e.g. a pair of aces has about
+         * 85% equity against one random hand and 7-2 offsuit about 35%
+         * int maxRollouts: the most rollouts to deal for each hand
+         * double tolerance: how close to the equity each estimate must be, at 95% confidence
+         */
+        int maxRollouts = 1000000;
+        double tolerance = 0.001;
+
+        String[] hands = {"AsAh", "KsKh", "AsKs", "7s2h", "Tc9c"};
+        SplittableRandom random = new SplittableRandom(1);
+        for(String hand : hands) {
+            long hole = 1L << Cards.getCard(hand, 0) | 1L << Cards.getCard(hand, 2);
+            for(int opponents = 1; opponents <= 5; opponents += 2) {
+                long start = System.nanoTime();
+                double equity = equity(hole, 0, opponents, random, maxRollouts, tolerance);
+                long time = System.nanoTime() - start;
+                System.out.println(hand + " against " + opponents + ": " + equity + " (" + time / 1000000 + " ms)");
+            }
+        }
+    }
+}
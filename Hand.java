@@ -0,0 +1,281 @@
+import java.util.Arrays;
+
+/**
+ * This class holds everything in the data about one hand of poker, so that features can be computed from it without
+ * reading the text again.
+ *
+ * A hand has:
+ *      The number of the hand and the small and big blinds, e.g. 50 and 100 for "Hold'em No Limit (50/100)"
+ *      The seat of the button
+ *      The name and stack of the player in each seat. Seats are numbered as in the data, from 1 to HandParser.MAX_SEAT
+ *          (10 at a 10-max table), and used as indices, so arrays of seats have SEATS places
+ *      The hole cards dealt to each seat and the five community cards, as the index of each card (see Cards.java).
+ *          A card that was not dealt is -1
+ *      Every action taken, in order. For each action the hand keeps the seat of the player, the street it was taken
+ *          on (0 is before the flop, 1 the flop, 2 the turn and 3 the river), what the player did, and the amounts:
+ *              amount is the first number in the action, e.g. 125 for "raises 125 to 225" and 50 for "calls 50"
+ *              total is the bet the player raises to for a raise, or the same as amount for anything else
+ *              Either is -1 if the action has no number
+ *          and whether the player is all-in
+ *      Whether the hand reached its summary
+ *
+ * Hands are read from the text by HandBuilder and saved to and loaded from a binary file by HandCache.
+ */
+public class Hand {
+    public static final int SEATS = HandParser.MAX_SEAT + 1;
+
+    public static final byte SMALL_BLIND = 0;
+    public static final byte BIG_BLIND = 1;
+    public static final byte BLIND = 2;
+    public static final byte FOLDS = 3;
+    public static final byte CHECKS = 4;
+    public static final byte CALLS = 5;
+    public static final byte BETS = 6;
+    public static final byte RAISES = 7;
+    public static final byte SHOWS = 8;
+    public static final byte OTHER = 9;
+
+    private final long id;
+    private final int smallBlind;
+    private final int bigBlind;
+    private int button = -1;
+    private final String[] names = new String[SEATS];
+    private final int[] stacks = new int[SEATS];
+    private final byte[][] holes = new byte[SEATS][2];
+    private final byte[] board = {-1, -1, -1, -1, -1};
+    private boolean summary = false;
+
+    private int actions = 0;
+    private byte[] seats = new byte[16];
+    private byte[] streets = new byte[16];
+    private byte[] verbs = new byte[16];
+    private boolean[] allIns = new boolean[16];
+    private int[] amounts = new int[16];
+    private int[] totals = new int[16];
+
+    /**
+     * Constructor for a hand with no players or actions yet
+     * @param id the number of the hand
+     * @param smallBlind the small blind
+     * @param bigBlind the big blind
+     */
+    public Hand(long id, int smallBlind, int bigBlind) {
+        this.id = id;
+        this.smallBlind = smallBlind;
+        this.bigBlind = bigBlind;
+        for(byte[] hole : holes) {
+            Arrays.fill(hole, (byte) -1);
+        }
+    }
+
+    /**
+     * Function to seat a player
+     * @param seat the seat, from 1 to HandParser.MAX_SEAT
+     * @param name the name of the player
+     * @param stack the chips the player starts the hand with
+     */
+    public void setSeat(int seat, String name, int stack) {
+        names[seat] = name;
+        stacks[seat] = stack;
+    }
+
+    /**
+     * Function to set the seat of the button
+     * @param seat the seat
+     */
+    public void setButton(int seat) {
+        button = seat;
+    }
+
+    /**
+     * Function to set the hole cards dealt to a seat
+     * @param seat the seat
+     * @param card1 the index of the first card
+     * @param card2 the index of the second card
+     */
+    public void setHole(int seat, int card1, int card2) {
+        holes[seat][0] = (byte) card1;
+        holes[seat][1] = (byte) card2;
+    }
+
+    /**
+     * Function to set one of the community cards
+     * @param i 0 to 2 for the flop, 3 for the turn and 4 for the river
+     * @param card the index of the card
+     */
+    public void setBoard(int i, int card) {
+        board[i] = (byte) card;
+    }
+
+    /**
+     * Function to mark that the hand reached its summary
+     */
+    public void setSummary() {
+        summary = true;
+    }
+
+    /**
+     * Function to add an action at the end of the hand
+     * @param seat the seat of the player
+     * @param street the street, from 0 before the flop to 3 on the river
+     * @param verb what the player did, e.g. Hand.RAISES
+     * @param amount the first number in the action, or -1
+     * @param total the bet raised to for a raise, the same as amount otherwise, or -1
+     * @param allIn true if the player is all-in
+     */
+    public void addAction(int seat, int street, byte verb, int amount, int total, boolean allIn) {
+        if(actions == verbs.length) {
+            int capacity = actions * 2;
+            seats = Arrays.copyOf(seats, capacity);
+            streets = Arrays.copyOf(streets, capacity);
+            verbs = Arrays.copyOf(verbs, capacity);
+            allIns = Arrays.copyOf(allIns, capacity);
+            amounts = Arrays.copyOf(amounts, capacity);
+            totals = Arrays.copyOf(totals, capacity);
+        }
+        seats[actions] = (byte) seat;
+        streets[actions] = (byte) street;
+        verbs[actions] = verb;
+        allIns[actions] = allIn;
+        amounts[actions] = amount;
+        totals[actions] = total;
+        actions++;
+    }
+
+    /**
+     * Function to return the number of the hand
+     * @return the number of the hand
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Function to return the small blind
+     * @return the small blind
+     */
+    public int getSmallBlind() {
+        return smallBlind;
+    }
+
+    /**
+     * Function to return the big blind
+     * @return the big blind
+     */
+    public int getBigBlind() {
+        return bigBlind;
+    }
+
+    /**
+     * Function to return the seat of the button
+     * @return the seat of the button, or -1 if it is not known
+     */
+    public int getButton() {
+        return button;
+    }
+
+    /**
+     * Function to return the name of the player in a seat
+     * @param seat the seat
+     * @return the name, or null if nobody sits there
+     */
+    public String getName(int seat) {
+        return names[seat];
+    }
+
+    /**
+     * Function to return the chips the player in a seat starts the hand with
+     * @param seat the seat
+     * @return the chips the player in a seat starts the hand with
+     */
+    public int getStack(int seat) {
+        return stacks[seat];
+    }
+
+    /**
+     * Function to return the hole cards dealt to a seat
+     * @param seat the seat
+     * @return the indices of the two cards, -1 for a card that was not dealt. The array must not be changed
+     */
+    public byte[] getHole(int seat) {
+        return holes[seat];
+    }
+
+    /**
+     * Function to return the community cards
+     * @return the indices of the five cards, -1 for a card that was not dealt. The array must not be changed
+     */
+    public byte[] getBoard() {
+        return board;
+    }
+
+    /**
+     * Function to check whether the hand reached its summary
+     * @return true if the hand reached its summary
+     */
+    public boolean hasSummary() {
+        return summary;
+    }
+
+    /**
+     * Function to return the number of actions
+     * @return the number of actions
+     */
+    public int getActions() {
+        return actions;
+    }
+
+    /**
+     * Function to return the seat of the player taking an action
+     * @param action the index of the action
+     * @return the seat of the player taking an action
+     */
+    public int getSeat(int action) {
+        return seats[action];
+    }
+
+    /**
+     * Function to return the street an action is taken on, from 0 before the flop to 3 on the river
+     * @param action the index of the action
+     * @return the street an action is taken on, from 0 before the flop to 3 on the river
+     */
+    public int getStreet(int action) {
+        return streets[action];
+    }
+
+    /**
+     * Function to return what the player did in an action, e.g. Hand.RAISES
+     * @param action the index of the action
+     * @return what the player did in an action, e.g. Hand.RAISES
+     */
+    public byte getVerb(int action) {
+        return verbs[action];
+    }
+
+    /**
+     * Function to check whether the player is all-in after an action
+     * @param action the index of the action
+     * @return true if the player is all-in after an action
+     */
+    public boolean isAllIn(int action) {
+        return allIns[action];
+    }
+
+    /**
+     * Function to return the first number in an action, or -1 if it has none
+     * @param action the index of the action
+     * @return the first number in an action, or -1 if it has none
+     */
+    public int getAmount(int action) {
+        return amounts[action];
+    }
+
+    /**
+     * Function to return the bet raised to in a raise, the same as the amount otherwise
+     * @param action the index of the action
+     * @return the bet raised to in a raise, the same as the amount otherwise
+     */
+    public int getTotal(int action) {
+        return totals[action];
+    }
+}
@@ -0,0 +1,167 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class reads the lines of the data into Hand objects.
+ *
+ * Lines are read as a CharSequence, like in HandParser, so they can come from a Scanner or from HandReader. Each
+ * "PokerStars Hand #" line starts a new hand, and the lines after it fill it in:
+ *      "Table '...' Seat #6 is the button" sets the button
+ *      "Seat 1: Bill (10000 in chips)" seats a player. A seat out of range is reported and skipped, as in HandParser
+ *      "Dealt to Bill [Td 2c]" sets the hole cards
+ *      The FLOP, TURN and RIVER lines set the community cards and start a new street
+ *      A line starting with the name of a seated player followed by ": " is an action, split into its parts by an
+ *          ActionTokenizer
+ *      "*** SUMMARY ***" ends the hand. The lines after it are skipped
+ * Other lines, such as "Uncalled bet (125) returned to MrBlue", are skipped.
+ */
+public class HandBuilder {
+    private final List<Hand> hands = new ArrayList<>();
+    private Hand hand = null;
+    private int street = 0;
+
+    private final PlayerTable players = new PlayerTable(null);
+    private final ActionTokenizer tokenizer = new ActionTokenizer();
+    private final int[] ids = new int[Hand.SEATS];
+
+    /**
+     * Function to read every line of a file into hands
+     * @param file the file with the data
+     * @return the hands, in the order of the file
+     * @throws IOException if the file cannot be read
+     */
+    public static List<Hand> parse(File file) throws IOException {
+        HandBuilder builder = new HandBuilder();
+        try (HandReader reader = new HandReader(file)) {
+            while(reader.nextLine()) {
+                builder.parseLine(reader.line());
+            }
+        }
+        return builder.getHands();
+    }
+
+    /**
+     * Function to return the hands read so far
+     * @return the hands
+     */
+    public List<Hand> getHands() {
+        return hands;
+    }
+
+    /**
+     * Function to update the current hand with one line of the data
+     * @param line the line to read
+     */
+    public void parseLine(CharSequence line) {
+        if(HandParser.indexOf(line, "PokerStars") != -1) {
+            startHand(line);
+        } else if(hand == null || hand.hasSummary()) {
+            return;
+        } else if(HandParser.startsWith(line, "Table '", 0)) {
+            int i = HandParser.indexOf(line, "Seat #");
+            if(i != -1) {
+                hand.setButton(readInt(line, i + 6));
+            }
+        } else if(HandParser.startsWith(line, "Seat ", 0) && HandParser.indexOf(line, " in chips)") != -1) {
+            int colon = HandParser.indexOf(line, ": ");
+            int seat = HandParser.readSeat(line, colon);
+            if(seat != -1) {
+                int end = colon + 2;
+                while(line.charAt(end) != '(') {
+                    end++;
+                }
+                int id = players.intern(line, colon + 2, end - 1);
+                ids[seat] = id;
+                hand.setSeat(seat, players.getName(id), readInt(line, end + 1));
+            }
+        } else if(HandParser.startsWith(line, "Dealt to ", 0)) {
+            int seat = getSeat(players.findBefore(line, 9, " ["));
+            if(seat != -1) {
+                int i = 9 + hand.getName(seat).length();
+                hand.setHole(seat, HandParser.getCard(line, i + 2), HandParser.getCard(line, i + 5));
+            }
+        } else if(HandParser.indexOf(line, "FLOP") != -1) {
+            int index = HandParser.indexOf(line, "FLOP");
+            hand.setBoard(0, HandParser.getCard(line, index + 10));
+            hand.setBoard(1, HandParser.getCard(line, index + 13));
+            hand.setBoard(2, HandParser.getCard(line, index + 16));
+            street = 1;
+        } else if(HandParser.indexOf(line, "TURN") != -1) {
+            hand.setBoard(3, HandParser.getCard(line, HandParser.indexOf(line, "TURN") + 21));
+            street = 2;
+        } else if(HandParser.indexOf(line, "RIVER") != -1) {
+            hand.setBoard(4, HandParser.getCard(line, HandParser.indexOf(line, "RIVER") + 27));
+            street = 3;
+        } else if(HandParser.indexOf(line, "SUMMARY") != -1) {
+            hand.setSummary();
+        } else if(tokenizer.readAction(line, players)) {
+            int seat = getSeat(tokenizer.getActor());
+            if(seat != -1) {
+                hand.addAction(seat, street, tokenizer.getVerb(), tokenizer.getAmount(), tokenizer.getTotal(), tokenizer.isAllIn());
+            }
+        }
+    }
+
+    /**
+     * Helper function to start a new hand from a "PokerStars Hand #118058: Hold'em No Limit (50/100) - ..." line
+     * @param line the line
+     */
+    private void startHand(CharSequence line) {
+        tokenizer.readHeader(line);
+        hand = new Hand(tokenizer.getId(), Math.max(0, tokenizer.getSmallBlind()), Math.max(0, tokenizer.getBigBlind()));
+        hands.add(hand);
+        street = 0;
+        Arrays.fill(ids, -1);
+    }
+
+    /**
+     * Helper function to find the seat of a player in the current hand
+     * @param id the id of the player, or -1
+     * @return the seat of the player, or -1 if the player is not seated
+     */
+    private int getSeat(int id) {
+        if(id == -1) {
+            return -1;
+        }
+        for(int seat = 0; seat < Hand.SEATS; seat++) {
+            if(ids[seat] == id) {
+                return seat;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Helper function to read the whole number that starts at an index, stopping at the first character that is not a digit
+     * @param line the line with the number
+     * @param start the index of the first digit
+     * @return the number, or -1 if there is no digit at the index
+     */
+    private static int readInt(CharSequence line, int start) {
+        return (int) readLong(line, start);
+    }
+
+    /**
+     * Helper function to read the whole number that starts at an index, stopping at the first character that is not a digit
+     * @param line the line with the number
+     * @param start the index of the first digit
+     * @return the number, or -1 if there is no digit at the index
+     */
+    private static long readLong(CharSequence line, int start) {
+        int end = start;
+        while(end < line.length() && Character.isDigit(line.charAt(end))) {
+            end++;
+        }
+        if(end == start) {
+            return -1;
+        }
+        long n = 0;
+        for(int i = start; i < end; i++) {
+            n = n * 10 + (line.charAt(i) - '0');
+        }
+        return n;
+    }
+}
@@ -0,0 +1,314 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * This class saves the hands read from a file of data in a compact binary file, so that later runs can load the hands
+ * without reading the text again.
+ *
+ * Every time a feature is changed, Poker.java and Poker2.java used to read the whole text of the data again. With the
+ * cache, the text is only read the first time. The binary file is written next to the data with ".hands" added to
+ * its name, e.g. pluribus_118.txt.hands, and starts with the size, the time the data was last modified and a CRC-32C
+ * checksum of the data. The cache is only used if all three still match the data and it was written by the current
+ * VERSION; otherwise the text is read again and the cache is replaced.
+ *
+ * After the header, the file has a table of every player's name, so that each name is only written once, followed by
+ * the hands. Numbers are written in as few bytes as they need (7 bits per byte), so most actions take 4 bytes rather
+ * than the 20 to 40 characters of their line.
+ */
+public class HandCache {
+    private static final int MAGIC = 0x50484331;
+
+    /**
+     * The version of the format and of the way HandBuilder reads the text. It is increased whenever either changes, so that
+     * caches written before are read from the text again. 2: the actions are split by ActionTokenizer and the blinds are
+     * read from the header
+     */
+    private static final int VERSION = 2;
+
+    private static final int BUFFER = 1 << 16;
+    private static final long WINDOW = 1L << 30;
+
+    /**
+     * Function to load the hands in a file of data, from the cache if it is up to date or from the text otherwise
+     * If the text is read, the cache is written so that the next run can use it
+     * @param source the file with the data
+     * @return the hands, in the order of the file
+     * @throws IOException if the data cannot be read or the cache cannot be written
+     */
+    public static List<Hand> load(File source) throws IOException {
+        File cache = getCacheFile(source);
+        long size = source.length();
+        long modified = source.lastModified();
+        if(cache.isFile()) {
+            List<Hand> hands = read(cache, size, modified, source);
+            if(hands != null) {
+                return hands;
+            }
+        }
+        List<Hand> hands = HandBuilder.parse(source);
+        write(hands, cache, size, modified, checksum(source));
+        return hands;
+    }
+
+    /**
+     * Function to return the cache file for a file of data
+     * @param source the file with the data
+     * @return the cache file, named like the data with ".hands" added
+     */
+    public static File getCacheFile(File source) {
+        return new File(source.getPath() + ".hands");
+    }
+
+    /**
+     * Function to compute the CRC-32C checksum of a file
+     * @param file the file
+     * @return the checksum
+     * @throws IOException if the file cannot be read
+     */
+    public static long checksum(File file) throws IOException {
+        CRC32C crc = new CRC32C();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            long size = channel.size();
+            for(long start = 0; start < size; start += WINDOW) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW, size - start));
+                crc.update(buffer);
+            }
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Function to write hands to a cache file. The file is written under a temporary name and then renamed, so a run
+     * that stops part of the way through never leaves a broken cache
+     * @param hands the hands
+     * @param cache the cache file
+     * @param size the size of the data
+     * @param modified the time the data was last modified
+     * @param checksum the checksum of the data
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(List<Hand> hands, File cache, long size, long modified, long checksum) throws IOException {
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        for(Hand hand : hands) {
+            for(int seat = 0; seat < Hand.SEATS; seat++) {
+                String name = hand.getName(seat);
+                if(name != null && !ids.containsKey(name)) {
+                    ids.put(name, names.size());
+                    names.add(name);
+                }
+            }
+        }
+        File temp = new File(cache.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp), BUFFER))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(size);
+            out.writeLong(modified);
+            out.writeLong(checksum);
+            writeVarLong(out, names.size());
+            for(String name : names) {
+                out.writeUTF(name);
+            }
+            writeVarLong(out, hands.size());
+            for(Hand hand : hands) {
+                writeHand(out, hand, ids);
+            }
+        }
+        Files.move(temp.toPath(), cache.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Function to read hands from a cache file if it was written for the current version of the data
+     * @param cache the cache file
+     * @param size the size of the data
+     * @param modified the time the data was last modified
+     * @param source the file with the data, whose checksum is compared if the size and time match
+     * @return the hands, or null if the cache is out of date or cannot be read
+     * @throws IOException if the data cannot be read
+     */
+    public static List<Hand> read(File cache, long size, long modified, File source) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cache), BUFFER))) {
+            if(in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != size || in.readLong() != modified) {
+                return null;
+            }
+            if(in.readLong() != checksum(source)) {
+                return null;
+            }
+            // Each name and each hand takes at least one byte, so a count larger than the file was not written by write
+            int nameCount = readIndex(in, cache.length());
+            if(nameCount == -1) {
+                System.out.println("The cache " + cache.getName() + " has a count of names out of range and will be written again");
+                return null;
+            }
+            String[] names = new String[nameCount];
+            for(int i = 0; i < names.length; i++) {
+                names[i] = in.readUTF();
+            }
+            int count = readIndex(in, cache.length());
+            if(count == -1) {
+                System.out.println("The cache " + cache.getName() + " has a count of hands out of range and will be written again");
+                return null;
+            }
+            List<Hand> hands = new ArrayList<>(count);
+            for(int i = 0; i < count; i++) {
+                Hand hand = readHand(in, names);
+                if(hand == null) {
+                    System.out.println("The cache " + cache.getName() + " has a seat or a name out of range and will be written again");
+                    return null;
+                }
+                hands.add(hand);
+            }
+            return hands;
+        } catch (EOFException e) {
+            System.out.println("The cache " + cache.getName() + " is incomplete and will be written again");
+            return null;
+        }
+    }
+
+    /**
+     * Helper function to write one hand
+     * @param out the stream to write to
+     * @param hand the hand
+     * @param ids the index of each name in the table of names
+     * @throws IOException if the stream cannot be written
+     */
+    private static void writeHand(DataOutputStream out, Hand hand, Map<String, Integer> ids) throws IOException {
+        writeVarLong(out, hand.getId() + 1);
+        writeVarLong(out, hand.getSmallBlind() + 1);
+        writeVarLong(out, hand.getBigBlind() + 1);
+        writeVarLong(out, hand.getButton() + 1);
+        int seats = 0;
+        for(int seat = 0; seat < Hand.SEATS; seat++) {
+            if(hand.getName(seat) != null) {
+                seats |= 1 << seat;
+            }
+        }
+        writeVarLong(out, seats);
+        for(int seat = 0; seat < Hand.SEATS; seat++) {
+            if(hand.getName(seat) != null) {
+                writeVarLong(out, ids.get(hand.getName(seat)));
+                writeVarLong(out, hand.getStack(seat) + 1);
+                out.writeByte(hand.getHole(seat)[0]);
+                out.writeByte(hand.getHole(seat)[1]);
+            }
+        }
+        out.write(hand.getBoard());
+        out.writeBoolean(hand.hasSummary());
+        writeVarLong(out, hand.getActions());
+        for(int i = 0; i < hand.getActions(); i++) {
+            out.writeByte(hand.getSeat(i));
+            out.writeByte(hand.getVerb(i) | hand.getStreet(i) << 4 | (hand.isAllIn(i) ? 1 << 6 : 0));
+            writeVarLong(out, hand.getAmount(i) + 1);
+            writeVarLong(out, hand.getTotal(i) + 1);
+        }
+    }
+
+    /**
+     * Helper function to read one hand
+     * @param in the stream to read from
+     * @param names the table of names
+     * @return the hand, or null if a player or an action has a seat that is not between 1 and HandParser.MAX_SEAT, or a
+     *      player's name is not in the table of names
+     * @throws IOException if the stream cannot be read
+     */
+    private static Hand readHand(DataInputStream in, String[] names) throws IOException {
+        long id = readVarLong(in) - 1;
+        int smallBlind = (int) readVarLong(in) - 1;
+        int bigBlind = (int) readVarLong(in) - 1;
+        Hand hand = new Hand(id, smallBlind, bigBlind);
+        hand.setButton((int) readVarLong(in) - 1);
+        long seats = readVarLong(in);
+        if((seats & 1) != 0 || seats >>> Hand.SEATS != 0) {
+            return null;
+        }
+        for(int seat = 0; seat < Hand.SEATS; seat++) {
+            if((seats & 1L << seat) != 0) {
+                int name = readIndex(in, names.length);
+                if(name == -1) {
+                    return null;
+                }
+                hand.setSeat(seat, names[name], (int) readVarLong(in) - 1);
+                hand.setHole(seat, in.readByte(), in.readByte());
+            }
+        }
+        for(int i = 0; i < 5; i++) {
+            hand.setBoard(i, in.readByte());
+        }
+        if(in.readBoolean()) {
+            hand.setSummary();
+        }
+        int actions = (int) readVarLong(in);
+        for(int i = 0; i < actions; i++) {
+            int seat = in.readByte();
+            int packed = in.readByte();
+            int amount = (int) readVarLong(in) - 1;
+            int total = (int) readVarLong(in) - 1;
+            if(seat < 1 || seat > HandParser.MAX_SEAT) {
+                return null;
+            }
+            hand.addAction(seat, packed >> 4 & 3, (byte) (packed & 15), amount, total, (packed & 1 << 6) != 0);
+        }
+        return hand;
+    }
+
+    /**
+     * Helper function to write a number that is not negative in as few bytes as it needs, 7 bits per byte
+     * @param out the stream to write to
+     * @param n the number
+     * @throws IOException if the stream cannot be written
+     */
+    private static void writeVarLong(DataOutputStream out, long n) throws IOException {
+        while((n & ~0x7fL) != 0) {
+            out.writeByte((int) (n & 0x7f) | 0x80);
+            n >>>= 7;
+        }
+        out.writeByte((int) n);
+    }
+
+    /**
+     * Helper function to read a count or an index written by writeVarLong and check that it is below a limit
+     * @param in the stream to read from
+     * @param limit the number it must be below
+     * @return the number, or -1 if it is not below the limit
+     * @throws IOException if the stream cannot be read
+     */
+    private static int readIndex(DataInputStream in, long limit) throws IOException {
+        long n = readVarLong(in);
+        return n < Math.min(limit, Integer.MAX_VALUE) ? (int) n : -1;
+    }
+
+    /**
+     * Helper function to read a number written by writeVarLong
+     * @param in the stream to read from
+     * @return the number
+     * @throws IOException if the stream cannot be read
+     */
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long n = 0;
+        for(int shift = 0; ; shift += 7) {
+            int b = in.readUnsignedByte();
+            n |= (long) (b & 0x7f) << shift;
+            if((b & 0x80) == 0) {
+                return n;
+            }
+        }
+    }
+}
@@ -0,0 +1,221 @@
+import java.util.SplittableRandom;
+
+/**
+ * This class ranks poker hands of 5, 6 or 7 cards, to give the neural network the strength of the player's hand as
+ * well as the cards themselves.
+ *
+ * The rank of a hand is an int that is larger for a stronger hand, and equal for hands that tie:
+ *      The 4 bits from bit 20 are the category: 0 for high card, 1 for one pair, 2 for two pair, 3 for three of a kind,
+ *          4 for a straight, 5 for a flush, 6 for a full house, 7 for four of a kind and 8 for a straight flush
+ *      The 20 bits below are the ranks that break ties within the category, 4 bits each from the most important,
+ *          with 0 for a two and 12 for an ace, e.g. the rank of the pair then the three kickers for one pair
+ * Only the best five cards count, so the rank of 6 or 7 cards is the rank of the best hand of 5 of them.
+ *
+ * The cards are given as a long with the bit (1L << card) set for each card, where card is the index from Cards.java.
+ * Each suit is 13 bits of the long, so the cards of a suit are read with one shift. From the four suits:
+ *      A suit with 5 or more cards is a flush. Its best five cards, or its highest straight, are looked up in tables
+ *      The ranks held in all four suits are the four of a kinds, in three of the suits the three of a kinds, and so on
+ *      The highest straight and the highest five ranks held in any suit are looked up in tables of 8192 entries, one
+ *          for each set of ranks
+ * so a hand is ranked with a few dozen operations and no loops over the cards, and none of 21 five-card hands of seven
+ * cards have to be tried.
+ *
+ * addColumns adds the rank and category of the player's cards in each row of a Dataset as two extra columns.
+ */
+public class HandEvaluator {
+    public static final int HIGH_CARD = 0;
+    public static final int ONE_PAIR = 1;
+    public static final int TWO_PAIR = 2;
+    public static final int THREE_OF_A_KIND = 3;
+    public static final int STRAIGHT = 4;
+    public static final int FLUSH = 5;
+    public static final int FULL_HOUSE = 6;
+    public static final int FOUR_OF_A_KIND = 7;
+    public static final int STRAIGHT_FLUSH = 8;
+
+    public static final String[] CATEGORIES = {"High card", "One pair", "Two pair", "Three of a kind", "Straight", "Flush", "Full house", "Four of a kind", "Straight flush"};
+
+    /**
+     * The largest rank plus one, used to scale ranks to between 0 and 1
+     */
+    public static final int RANKS = (STRAIGHT_FLUSH + 1) << 20;
+
+    private static final int[] TOP_FIVE = new int[1 << 13];
+    private static final int[] STRAIGHTS = new int[1 << 13];
+
+    static {
+        for(int mask = 0; mask < 1 << 13; mask++) {
+            int top = 0;
+            int m = mask;
+            for(int i = 0; i < 5; i++) {
+                top <<= 4;
+                if(m != 0) {
+                    int high = 31 - Integer.numberOfLeadingZeros(m);
+                    top |= high;
+                    m &= ~(1 << high);
+                }
+            }
+            TOP_FIVE[mask] = top;
+            for(int high = 12; high >= 3; high--) {
+                int straight = high == 3 ? 0x100F : 0x1F << (high - 4);
+                if((mask & straight) == straight) {
+                    STRAIGHTS[mask] = high + 1;
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Function to rank a hand
+     * @param cards the cards, with the bit (1L << card) set for each card. 5 to 7 cards give the rank of the best five;
+     *      fewer cards are ranked as if the missing cards were too low to count, e.g. two aces rank as a pair of aces
+     * @return the rank, larger for a stronger hand
+     */
+    public static int evaluate(long cards) {
+        int s = ranks((int) cards & 0x1FFF);
+        int c = ranks((int) (cards >>> 13) & 0x1FFF);
+        int d = ranks((int) (cards >>> 26) & 0x1FFF);
+        int h = ranks((int) (cards >>> 39) & 0x1FFF);
+
+        int flush = Integer.bitCount(s) >= 5 ? s : Integer.bitCount(c) >= 5 ? c : Integer.bitCount(d) >= 5 ? d : Integer.bitCount(h) >= 5 ? h : 0;
+        if(flush != 0) {
+            int straight = STRAIGHTS[flush];
+            if(straight != 0) {
+                return STRAIGHT_FLUSH << 20 | (straight - 1) << 16;
+            }
+            return FLUSH << 20 | TOP_FIVE[flush];
+        }
+
+        int all = s | c | d | h;
+        int quads = s & c & d & h;
+        if(quads != 0) {
+            return FOUR_OF_A_KIND << 20 | Integer.numberOfTrailingZeros(quads) << 16 | (TOP_FIVE[all & ~quads] >>> 16) << 12;
+        }
+        int trips = (s & c & d) | (s & c & h) | (s & d & h) | (c & d & h);
+        int pairs = (s & c) | (s & d) | (s & h) | (c & d) | (c & h) | (d & h);
+        int trip = trips == 0 ? 0 : Integer.highestOneBit(trips);
+        if(trip != 0 && (pairs & ~trip) != 0) {
+            return FULL_HOUSE << 20 | Integer.numberOfTrailingZeros(trip) << 16 | Integer.numberOfTrailingZeros(Integer.highestOneBit(pairs & ~trip)) << 12;
+        }
+        int straight = STRAIGHTS[all];
+        if(straight != 0) {
+            return STRAIGHT << 20 | (straight - 1) << 16;
+        }
+        if(trip != 0) {
+            return THREE_OF_A_KIND << 20 | Integer.numberOfTrailingZeros(trip) << 16 | (TOP_FIVE[all & ~trip] >>> 12) << 8;
+        }
+        if(pairs != 0) {
+            int pair1 = Integer.highestOneBit(pairs);
+            int pair2 = Integer.highestOneBit(pairs & ~pair1);
+            if(pair2 != 0) {
+                return TWO_PAIR << 20 | Integer.numberOfTrailingZeros(pair1) << 16 | Integer.numberOfTrailingZeros(pair2) << 12 | (TOP_FIVE[all & ~(pair1 | pair2)] >>> 16) << 8;
+            }
+            return ONE_PAIR << 20 | Integer.numberOfTrailingZeros(pair1) << 16 | (TOP_FIVE[all & ~pair1] >>> 8) << 4;
+        }
+        return HIGH_CARD << 20 | TOP_FIVE[all];
+    }
+
+    /**
+     * Function to rank a hand
+     * @param cards the indices of the cards (see Cards.java). Cards that are -1 are skipped
+     * @return the rank, larger for a stronger hand
+     */
+    public static int evaluate(byte[] cards) {
+        long mask = 0;
+        for(byte card : cards) {
+            if(card != -1) {
+                mask |= 1L << card;
+            }
+        }
+        return evaluate(mask);
+    }
+
+    /**
+     * Function to return the category of a rank
+     * @param rank the rank of a hand
+     * @return the category, e.g. HandEvaluator.FLUSH
+     */
+    public static int getCategory(int rank) {
+        return rank >>> 20;
+    }
+
+    /**
+     * Function to return the cards of a row of a Dataset
+     * @param data the dataset
+     * @param row the index of the row
+     * @return the cards, with the bit (1L << card) set for each of the hole cards and community cards dealt
+     */
+    public static long getCards(Dataset data, int row) {
+        long mask = 0;
+        for(int slot = 0; slot < Dataset.CARDS; slot++) {
+            int card = data.getCard(row, slot);
+            if(card != -1) {
+                mask |= 1L << card;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Function to add the strength of the player's hand in each row as two extra columns of a Dataset:
+     *      "rank": the rank of the hole cards and the community cards dealt so far, divided by RANKS so that it is between
+     *          0 and 1. Before the flop, only the hole cards count, so it shows whether they are a pair and how high they are
+     *      "category": the category of the rank, from 0 for high card to 8 for a straight flush
+     * @param data the dataset
+     */
+    public static void addColumns(Dataset data) {
+        int rank = data.addColumn("rank");
+        int category = data.addColumn("category");
+        for(int row = 0; row < data.size(); row++) {
+            int r = evaluate(getCards(data, row));
+            data.setExtra(row, rank, (double) r / RANKS);
+            data.setExtra(row, category, getCategory(r));
+        }
+    }
+
+    /**
+     * Helper function to turn the cards of one suit, ordered from ace to king as in Cards.java, into ranks ordered from two
+     * to ace, so that a higher bit is a higher card
+     * @param suit 13 bits, with bit 0 for the ace and bit 12 for the king
+     * @return 13 bits, with bit 0 for the two and bit 12 for the ace
+     */
+    private static int ranks(int suit) {
+        return (suit >>> 1) | ((suit & 1) << 12);
+    }
+
+    public static void main(String [] args) {
+        /*
+         * Timing the evaluator on random hands of seven cards
+         * int hands: the number of different hands to rank
+         * int passes: the number of times every hand is ranked. Only the last pass is timed
+         */
+        int hands = 1 << 20;
+        int passes = 20;
+
+        SplittableRandom random = new SplittableRandom(1);
+        long[] cards = new long[hands];
+        for(int i = 0; i < hands; i++) {
+            while(Long.bitCount(cards[i]) < 7) {
+                cards[i] |= 1L << random.nextInt(52);
+            }
+        }
+        int[] counts = new int[CATEGORIES.length];
+        long sum = 0;
+        long time = 0;
+        for(int pass = 0; pass < passes; pass++) {
+            long start = System.nanoTime();
+            for(int i = 0; i < hands; i++) {
+                sum += evaluate(cards[i]);
+            }
+            time = System.nanoTime() - start;
+        }
+        for(int i = 0; i < hands; i++) {
+            counts[getCategory(evaluate(cards[i]))]++;
+        }
+        for(int i = 0; i < CATEGORIES.length; i++) {
+            System.out.println(CATEGORIES[i] + ": " + (double) counts[i] / hands);
+        }
+        System.out.println("Millions of hands per second: " + hands / (time / 1000.0) + " (" + sum + ")");
+    }
+}
@@ -0,0 +1,279 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * This class keeps the .csv files up to date with a hand history file that is still being written to, reading only
+ * the hands added since the last time it looked.
+ *
+ * After each update, a checkpoint is saved next to the first .csv file (e.g. input_data.csv.checkpoint) with:
+ *      The path of the hand history file
+ *      The byte offset where the next unread hand starts
+ *      The number of the last hand read ("PokerStars Hand #118058") and the byte offset where it starts
+ *      The length of each .csv file after the rows of those hands were added
+ *      Whether the rows have the state columns of HandParser (see HandParser.addColumns)
+ * The next update reads the file from the saved offset, adds a row for every play in the new hands to the end of both
+ * .csv files, and saves a new checkpoint, so it takes time in proportion to the new hands rather than the whole file.
+ *
+ * The rows are added before the checkpoint is saved, so if the program stops in between, the .csv files have rows the
+ * checkpoint does not know about. The next update cuts the .csv files back to the saved lengths before adding the rows
+ * again, so no row is added twice.
+ *
+ * A hand is only read once it is complete: either the next hand has started, or the hand has reached its summary and
+ * been followed by an empty line. A hand that is still being played is read by a later update.
+ *
+ * If there is no checkpoint, the .csv files are missing, or the checkpoint does not match the file (it was replaced or
+ * cut short, so the last hand read is no longer where it was) or the columns, the whole file is read again and the .csv
+ * files are written from the start.
+ */
+public class HandFollower {
+    private static final String HEADER = "PokerStars Hand #";
+
+    private final File file;
+    private final String[] players;
+    private final boolean state;
+    private final String filename1;
+    private final String filename2;
+    private final File checkpoint;
+
+    private long offset = 0;
+    private long handOffset = -1;
+    private long hand = -1;
+    private long length1 = 0;
+    private long length2 = 0;
+
+    /**
+     * Constructor for a follower of a hand history file
+     * @param file the file with the data
+     * @param players the names of the players whose actions are recorded, or null to record every player
+     * @param state true to add the state columns of HandParser to each row (see HandParser.addColumns)
+     * @param filename1 the name of the .csv the inputs are added to
+     * @param filename2 the name of the .csv the outputs are added to
+     */
+    public HandFollower(File file, String[] players, boolean state, String filename1, String filename2) {
+        this.file = file;
+        this.players = players;
+        this.state = state;
+        this.filename1 = filename1;
+        this.filename2 = filename2;
+        this.checkpoint = new File(filename1 + ".checkpoint");
+    }
+
+    /**
+     * Function to check for new hands every so often until the program is stopped
+     * @param interval the number of milliseconds to wait between checks
+     * @throws IOException if a file cannot be read or written
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public void follow(long interval) throws IOException, InterruptedException {
+        while(true) {
+            int rows = update();
+            if(rows > 0) {
+                System.out.println("Added " + rows + " plays up to hand #" + hand);
+            }
+            Thread.sleep(interval);
+        }
+    }
+
+    /**
+     * Function to read the hands completed since the last update and add their rows to the .csv files
+     * @return the number of rows added
+     * @throws IOException if a file cannot be read or written
+     */
+    public int update() throws IOException {
+        boolean append = loadCheckpoint();
+        if(!append) {
+            Files.deleteIfExists(checkpoint.toPath());
+            offset = 0;
+            handOffset = -1;
+            hand = -1;
+        }
+        long end = findEnd();
+        Dataset data = new Dataset();
+        if(state) {
+            HandParser.addColumns(data);
+        }
+        if(end > offset) {
+            HandReader.parse(file, offset, end, players, data);
+        }
+        if(data.size() > 0 || !append) {
+            try (CsvWriter writer1 = new CsvWriter(new FileOutputStream(filename1, append));
+                    CsvWriter writer2 = new CsvWriter(new FileOutputStream(filename2, append))) {
+                for(int i = 0; i < data.size(); i++) {
+                    writer1.writeInput(data, i);
+                    writer2.writeOutput(data, i);
+                }
+            }
+        }
+        offset = Math.max(offset, end);
+        saveCheckpoint();
+        return data.size();
+    }
+
+    /**
+     * Function to return the byte offset where the next unread hand starts
+     * @return the byte offset
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Function to return the number of the last hand read
+     * @return the number of the hand, or -1 if no hand has been read
+     */
+    public long getHand() {
+        return hand;
+    }
+
+    /**
+     * Helper function to find where the last complete hand after the current offset ends
+     * Also moves the number and offset of the last hand read to the last complete hand
+     * @return the byte offset after the last complete hand, or the current offset if no new hand is complete
+     * @throws IOException if the file cannot be read
+     */
+    private long findEnd() throws IOException {
+        long size = file.length();
+        if(offset >= size) {
+            return offset;
+        }
+        long end = offset;
+        long start = -1;
+        long id = -1;
+        boolean summary = false;
+        try (HandReader reader = new HandReader(file, offset, size)) {
+            long position = offset;
+            while(reader.nextLine()) {
+                CharSequence line = reader.line();
+                if(HandParser.startsWith(line, HEADER, 0)) {
+                    if(start != -1) {
+                        end = position;
+                        handOffset = start;
+                        hand = id;
+                    }
+                    start = position;
+                    id = readId(line);
+                    summary = false;
+                } else if(start != -1 && HandParser.startsWith(line, "*** SUMMARY ***", 0)) {
+                    summary = true;
+                } else if(summary && line.length() == 0) {
+                    end = reader.getPosition();
+                    handOffset = start;
+                    hand = id;
+                }
+                position = reader.getPosition();
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Helper function to load the checkpoint and check that it still matches the file and the .csv files
+     * The .csv files are cut back to the lengths saved in the checkpoint, removing the rows of an update that stopped
+     * before saving it
+     * @return true if the new rows can be added to the end of the .csv files, false if the whole file must be read again
+     * @throws IOException if the checkpoint or the file cannot be read
+     */
+    private boolean loadCheckpoint() throws IOException {
+        if(!checkpoint.isFile() || !new File(filename1).isFile() || !new File(filename2).isFile()) {
+            return false;
+        }
+        Properties p = new Properties();
+        try (InputStream in = new FileInputStream(checkpoint)) {
+            p.load(in);
+        }
+        try {
+            if(!file.getAbsolutePath().equals(p.getProperty("file"))) {
+                return false;
+            }
+            if(state != Boolean.parseBoolean(p.getProperty("state"))) {
+                System.out.println("The .csv files were written " + (state ? "without" : "with") + " the state columns, so the whole file will be read again");
+                return false;
+            }
+            offset = Long.parseLong(p.getProperty("offset"));
+            handOffset = Long.parseLong(p.getProperty("handOffset"));
+            hand = Long.parseLong(p.getProperty("hand"));
+            length1 = Long.parseLong(p.getProperty("length1"));
+            length2 = Long.parseLong(p.getProperty("length2"));
+        } catch (NumberFormatException e) {
+            System.out.println("The checkpoint " + checkpoint.getName() + " cannot be read, so the whole file will be read again");
+            return false;
+        }
+        if(offset > file.length()) {
+            System.out.println(file.getName() + " is shorter than at the last update, so the whole file will be read again");
+            return false;
+        }
+        if(handOffset != -1) {
+            try (HandReader reader = new HandReader(file, handOffset, file.length())) {
+                if(!reader.nextLine() || !HandParser.startsWith(reader.line(), HEADER, 0) || readId(reader.line()) != hand) {
+                    System.out.println("Hand #" + hand + " is no longer where it was in " + file.getName() + ", so the whole file will be read again");
+                    return false;
+                }
+            }
+        }
+        if(new File(filename1).length() < length1 || new File(filename2).length() < length2) {
+            System.out.println("The .csv files are shorter than at the last update, so the whole file will be read again");
+            return false;
+        }
+        truncate(filename1, length1);
+        truncate(filename2, length2);
+        return true;
+    }
+
+    /**
+     * Helper function to cut a file back to a length, if it is longer
+     * @param filename the name of the file
+     * @param length the length in bytes
+     * @throws IOException if the file cannot be written
+     */
+    private static void truncate(String filename, long length) throws IOException {
+        try (RandomAccessFile out = new RandomAccessFile(filename, "rw")) {
+            if(out.length() > length) {
+                System.out.println("Removing the rows " + filename + " was given after the last checkpoint");
+                out.setLength(length);
+            }
+        }
+    }
+
+    /**
+     * Helper function to save the checkpoint. It is written under a temporary name and then renamed
+     * @throws IOException if the checkpoint cannot be written
+     */
+    private void saveCheckpoint() throws IOException {
+        Properties p = new Properties();
+        p.setProperty("file", file.getAbsolutePath());
+        p.setProperty("offset", Long.toString(offset));
+        p.setProperty("handOffset", Long.toString(handOffset));
+        p.setProperty("hand", Long.toString(hand));
+        p.setProperty("length1", Long.toString(new File(filename1).length()));
+        p.setProperty("length2", Long.toString(new File(filename2).length()));
+        p.setProperty("state", Boolean.toString(state));
+        File temp = new File(checkpoint.getPath() + ".tmp");
+        try (OutputStream out = new FileOutputStream(temp)) {
+            p.store(out, "Hands of " + file.getName() + " already added to " + filename1 + " and " + filename2);
+        }
+        Files.move(temp.toPath(), checkpoint.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Helper function to read the number of a hand from its first line
+     * @param line a line starting with "PokerStars Hand #"
+     * @return the number of the hand, or -1 if there is none
+     */
+    private static long readId(CharSequence line) {
+        int i = HEADER.length();
+        long id = 0;
+        while(i < line.length() && Character.isDigit(line.charAt(i))) {
+            id = id * 10 + (line.charAt(i) - '0');
+            i++;
+        }
+        return i == HEADER.length() ? -1 : id;
+    }
+}
@@ -0,0 +1,495 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.Scanner;
+
+/**
+ * This class sifts through the data one line at a time and fills every input and output column in a single pass.
+ *
+ * Poker.java and Poker2.java used to open a new Scanner on the data for each feature (getHands, getTables, getBets,
+ * getSeats, getPl and getOutputs), and Poker2.java did so again for every player, so the data was read once per
+ * feature per player. HandParser keeps all of the state that those functions kept separately, for every seat at the
+ * table at once, and updates it from every line it reads:
+ *      The player in each seat, found from the "Seat 1: Bill (10000 in chips)" lines and given an id by a PlayerTable
+ *      The hole cards dealt to each seat, as the index of each card (see Dataset.java)
+ *      The community cards, as the index of each card. They are cleared at the start of each hand
+ *      The highest bet made by another player, kept for each seat as in getBets. It is set to the big blind when the big
+ *          blind is posted, and a player who goes all-in raises it to everything they put in on the street
+ *      The number of folds, as in getPl. It is cleared at the summary of each hand
+ *
+ * If the Dataset was made with the columns in COLUMNS (see addColumns), the parser also keeps the state of the betting
+ * in each hand and writes it as extra columns of each row, as it stood before the player acted:
+ *      "pot": the chips in the pot, including the bets of the current street
+ *      "stack": the chips the player has left behind, from the "Seat 1: Bill (10000 in chips)" line minus what they put in
+ *      "toCall": the chips the player must add to match the highest bet of the street, at most their stack
+ *      "street": 0 before the flop, 1 on the flop, 2 on the turn and 3 on the river
+ * The chips are counted in big blinds, read from the header of the hand. Each action only changes the pot, the stack
+ * and the bet of the player acting and the highest bet of the street, so the state costs a few additions per line.
+ *
+ * The player acting in a line is found with one lookup of the text before ": " in the PlayerTable, rather than by
+ * checking the line against the name of every player, so there can be any number of players in the data. The rest of
+ * the line is split into the verb and the amounts by an ActionTokenizer in the same scan, and the blinds are read from
+ * the "PokerStars Hand #" line, so lines read as text and Hands loaded from HandCache update the state the same way.
+ *
+ * Whenever one of the recorded players takes an action, one row is added to a Dataset, which stores the cards as
+ * indices and only expands them into the format described in Poker.java when the rows are exported. The rows are
+ * written in the order the actions appear in the data.
+ *
+ * Lines are read as a CharSequence so that they can come from a Scanner (as Strings) or straight from the bytes of a
+ * memory-mapped file (see HandReader.java). Reading a line never creates a new String, except for the name of a player
+ * the first time they sit down.
+ */
+public class HandParser {
+    public static final String[] COLUMNS = {"pot", "stack", "toCall", "street"};
+    public static final int MAX_SEAT = 10;
+
+    private final PlayerTable players;
+    private final Dataset data;
+    private final int column;
+    private int rows = 0;
+
+    private final String[] names = new String[MAX_SEAT + 1];
+    private final int[] ids = new int[MAX_SEAT + 1];
+    private int[] seats = new int[16];
+    private final boolean[] seated = new boolean[MAX_SEAT + 1];
+    private final boolean[] recorded = new boolean[MAX_SEAT + 1];
+    private final byte[][] hands = new byte[MAX_SEAT + 1][2];
+    private final double[] bets = new double[MAX_SEAT + 1];
+    private final byte[] table = {-1, -1, -1, -1, -1};
+    private double folds = 0;
+
+    private final double[] stacks = new double[MAX_SEAT + 1];
+    private final double[] committed = new double[MAX_SEAT + 1];
+    private double pot = 0;
+    private double highest = 0;
+    private double bigBlind = -1;
+    private int street = 0;
+    private long id = -1;
+
+    private final ActionTokenizer tokenizer = new ActionTokenizer();
+
+    /**
+     * Constructor for a parser that records the actions of the given players
+     * @param players the names of the players whose actions are recorded, as written in the data, or null to record
+     *      every player
+     * @param data the Dataset to add the rows to. If it has the columns in COLUMNS, they are filled in too
+     */
+    public HandParser(String[] players, Dataset data) {
+        this.players = new PlayerTable(players);
+        this.data = data;
+        this.column = data.getColumn(COLUMNS[0]);
+        for(byte[] hand : hands) {
+            Arrays.fill(hand, (byte) -1);
+        }
+    }
+
+    /**
+     * Function to add the columns in COLUMNS to an empty Dataset, so that a HandParser fills them in as it reads the data
+     * @param data the dataset
+     */
+    public static void addColumns(Dataset data) {
+        for(String name : COLUMNS) {
+            data.addColumn(name);
+        }
+    }
+
+    /**
+     * Function to read every line of the data and fill a Dataset
+     * @param scanner a scanner to sift through the data
+     * @param players the names of the players whose actions are recorded, or null to record every player
+     * @param data the Dataset to add the rows to
+     * @return the number of rows added
+     */
+    public static int parse(Scanner scanner, String[] players, Dataset data) {
+        HandParser parser = new HandParser(players, data);
+        while(scanner.hasNextLine()) {
+            parser.parseLine(scanner.nextLine());
+        }
+        return parser.getRows();
+    }
+
+    /**
+     * Function to read every hand that was read before, e.g. from HandCache, and fill a Dataset
+     * @param hands the hands
+     * @param players the names of the players whose actions are recorded, or null to record every player
+     * @param data the Dataset to add the rows to
+     * @return the number of rows added
+     */
+    public static int parse(List<Hand> hands, String[] players, Dataset data) {
+        HandParser parser = new HandParser(players, data);
+        for(Hand hand : hands) {
+            parser.parseHand(hand);
+        }
+        return parser.getRows();
+    }
+
+    /**
+     * Function to update the state with every line of a hand that was read before. The rows added are the same as if
+     * each line of the hand were passed to parseLine
+     * @param hand the hand
+     */
+    public void parseHand(Hand hand) {
+        Arrays.fill(seated, false);
+        Arrays.fill(table, (byte) -1);
+        startHand(hand.getId(), hand.getBigBlind());
+        for(int seat = 0; seat < Hand.SEATS; seat++) {
+            String name = hand.getName(seat);
+            if(name != null) {
+                setName(seat, name, 0, name.length());
+                stacks[seat] = hand.getStack(seat);
+            }
+            hands[seat][0] = hand.getHole(seat)[0];
+            hands[seat][1] = hand.getHole(seat)[1];
+        }
+        byte[] board = hand.getBoard();
+        for(int i = 0; i < hand.getActions(); i++) {
+            while(street < hand.getStreet(i)) {
+                nextStreet();
+                if(street == 1) {
+                    System.arraycopy(board, 0, table, 0, 3);
+                } else {
+                    table[street + 1] = board[street + 1];
+                }
+            }
+            act(hand.getSeat(i), hand.getVerb(i), hand.getAmount(i), hand.getTotal(i), hand.isAllIn(i));
+        }
+        if(hand.hasSummary()) {
+            folds = 0;
+        }
+    }
+
+    /**
+     * Function to update the state of the hand with one line of the data
+     * @param line the line to read
+     */
+    public void parseLine(CharSequence line) {
+        if(indexOf(line, "PokerStars") != -1) {
+            Arrays.fill(seated, false);
+            Arrays.fill(table, (byte) -1);
+            for(byte[] hand : hands) {
+                Arrays.fill(hand, (byte) -1);
+            }
+            tokenizer.readHeader(line);
+            startHand(tokenizer.getId(), tokenizer.getBigBlind());
+        } else if(startsWith(line, "Seat ", 0) && indexOf(line, " in chips)") != -1) {
+            int colon = indexOf(line, ": ");
+            int seat = readSeat(line, colon);
+            if(seat != -1) {
+                int end = colon + 2;
+                while(line.charAt(end) != '(') {
+                    end++;
+                }
+                setName(seat, line, colon + 2, end - 1);
+                stacks[seat] = readAmount(line, end + 1);
+            }
+        } else if(startsWith(line, "Dealt to ", 0)) {
+            int seat = getSeat(players.findBefore(line, 9, " ["));
+            if(seat != -1) {
+                int i = 9 + names[seat].length();
+                hands[seat][0] = getCard(line, i + 2);
+                hands[seat][1] = getCard(line, i + 5);
+            }
+        } else if(indexOf(line, "FLOP") != -1) {
+            int index = indexOf(line, "FLOP");
+            table[0] = getCard(line, index + 10);
+            table[1] = getCard(line, index + 13);
+            table[2] = getCard(line, index + 16);
+            nextStreet();
+        } else if(indexOf(line, "TURN") != -1) {
+            int index = indexOf(line, "TURN");
+            table[3] = getCard(line, index + 21);
+            nextStreet();
+        } else if(indexOf(line, "RIVER") != -1) {
+            int index = indexOf(line, "RIVER");
+            table[4] = getCard(line, index + 27);
+            nextStreet();
+        } else if(indexOf(line, "SUMMARY") != -1) {
+            folds = 0;
+        } else if(tokenizer.readAction(line, players)) {
+            int seat = getSeat(tokenizer.getActor());
+            if(seat != -1) {
+                act(seat, tokenizer.getVerb(), tokenizer.getAmount(), tokenizer.getTotal(), tokenizer.isAllIn());
+            }
+        }
+    }
+
+    /**
+     * Function to return the number of rows added so far
+     * @return the number of rows added
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Helper function to seat a player. The name is only copied into a new String the first time the player is seen
+     * @param seat the seat
+     * @param line the line with the name
+     * @param start the index of the first character of the name
+     * @param end the index after the last character of the name
+     */
+    private void setName(int seat, CharSequence line, int start, int end) {
+        int id = players.intern(line, start, end);
+        if(id >= seats.length) {
+            seats = Arrays.copyOf(seats, Math.max(seats.length * 2, id + 1));
+        }
+        names[seat] = players.getName(id);
+        recorded[seat] = players.isRecorded(id);
+        ids[seat] = id;
+        seats[id] = seat;
+        seated[seat] = true;
+    }
+
+    /**
+     * Helper function to find the seat of a player in the current hand
+     * @param id the id of the player, or -1
+     * @return the seat of the player, or -1 if the player is not seated
+     */
+    private int getSeat(int id) {
+        if(id < 0 || id >= seats.length) {
+            return -1;
+        }
+        int seat = seats[id];
+        return seated[seat] && ids[seat] == id ? seat : -1;
+    }
+
+    /**
+     * Helper function to update the state of the hand with one action, from a line or from a Hand. A row is added first
+     * if the player is recorded and the action is a play (not a blind or showing cards)
+     * @param seat the seat of the player taking the action
+     * @param verb what the player did, e.g. Hand.RAISES
+     * @param amount the first number in the action, or -1
+     * @param total the bet raised to for a raise, the same as amount otherwise, or -1
+     * @param allIn true if the player is all-in
+     */
+    private void act(int seat, byte verb, int amount, int total, boolean allIn) {
+        if(verb == Hand.BIG_BLIND) {
+            if(bigBlind <= 0 && amount > 0) {
+                bigBlind = amount;
+            }
+            Arrays.fill(bets, bigBlind);
+            commit(seat, amount);
+            return;
+        }
+        if(recorded[seat] && verb != Hand.SMALL_BLIND && verb != Hand.BLIND && verb != Hand.SHOWS) {
+            addRow(seat, getAction(seat, verb));
+        }
+        if(verb == Hand.RAISES || verb == Hand.BETS) {
+            if(total != -1) {
+                raise(seat, total);
+            } else if(allIn) {
+                raise(seat, committed[seat] + stacks[seat]);
+            } else {
+                System.out.println("No number found for the bet by " + names[seat] + " in hand #" + id);
+            }
+        }
+        if(verb == Hand.RAISES) {
+            commit(seat, total - committed[seat]);
+        } else if(verb == Hand.SMALL_BLIND || verb == Hand.BLIND || verb == Hand.CALLS || verb == Hand.BETS) {
+            commit(seat, amount);
+        }
+        if(verb == Hand.FOLDS) {
+            folds++;
+        }
+    }
+
+    /**
+     * Helper function to raise the highest bet of every other seat, as in getBets
+     * @param seat the seat of the player who raises or bets
+     * @param bet the bet raised to. For a player who is all-in, it is everything they put in on the street
+     */
+    private void raise(int seat, double bet) {
+        for(int j = 0; j < bets.length; j++) {
+            if(j != seat && bet >= bets[j]) {
+                bets[j] = bet;
+            }
+        }
+    }
+
+    /**
+     * Helper function to clear the state of the betting at the start of a hand
+     * @param id the number of the hand, for messages
+     * @param bigBlind the big blind from the header of the hand, or -1 to read it from the "posts big blind" line
+     */
+    private void startHand(long id, int bigBlind) {
+        this.id = id;
+        this.bigBlind = bigBlind;
+        Arrays.fill(committed, 0);
+        pot = 0;
+        highest = 0;
+        street = 0;
+    }
+
+    /**
+     * Helper function to start the next street, on which every player starts with no bet
+     */
+    private void nextStreet() {
+        Arrays.fill(committed, 0);
+        highest = 0;
+        street++;
+    }
+
+    /**
+     * Helper function to move chips from the stack of a player into the pot
+     * @param seat the seat of the player
+     * @param chips the number of chips. Nothing is moved if it is not positive, e.g. -1 for an amount that was not found
+     */
+    private void commit(int seat, double chips) {
+        if(chips <= 0) {
+            return;
+        }
+        stacks[seat] -= chips;
+        committed[seat] += chips;
+        pot += chips;
+        highest = Math.max(highest, committed[seat]);
+    }
+
+    /**
+     * Helper function to read the first whole number in a line at or after an index, without creating any Strings
+     * @param line the line with the number
+     * @param from the index to start looking from
+     * @return the number, or -1 if there is no digit after the index
+     */
+    private static int readAmount(CharSequence line, int from) {
+        int start = from;
+        while(start < line.length() && !Character.isDigit(line.charAt(start))) {
+            start++;
+        }
+        int end = start;
+        while(end < line.length() && Character.isDigit(line.charAt(end))) {
+            end++;
+        }
+        return start == end ? -1 : parseInt(line, start, end);
+    }
+
+    /**
+     * Helper function to turn what the player did into the index of the action taken
+     * @param seat the seat of the player, for messages
+     * @param verb what the player did, e.g. Hand.RAISES
+     * @return 0 for folding, 1 for checking, 2 for calling, 3 for raising or betting, or -1 if the action is unknown
+     */
+    private int getAction(int seat, byte verb) {
+        if(verb == Hand.FOLDS) {
+            return 0;
+        } else if(verb == Hand.CHECKS) {
+            return 1;
+        } else if(verb == Hand.CALLS) {
+            return 2;
+        } else if(verb == Hand.RAISES || verb == Hand.BETS) {
+            return 3;
+        }
+        System.out.println("Unknown action by " + names[seat] + " in hand #" + id);
+        return -1;
+    }
+
+    /**
+     * Helper function to write the current state of the hand and the action taken as one row
+     * @param seat the seat of the player taking the action
+     * @param action the index of the action taken, or -1 if it is unknown
+     */
+    private void addRow(int seat, int action) {
+        int row = data.add((double) seat, (double) 6 - folds, Math.log(bets[seat]) / Math.log(5), hands[seat], table, action);
+        if(column != -1) {
+            data.setExtra(row, column, pot / bigBlind);
+            data.setExtra(row, column + 1, stacks[seat] / bigBlind);
+            data.setExtra(row, column + 2, Math.max(0, Math.min(highest - committed[seat], stacks[seat])) / bigBlind);
+            data.setExtra(row, column + 3, street);
+        }
+        rows++;
+    }
+
+    /**
+     * Helper function to read the number of the seat in a "Seat 1: Bill (10000 in chips)" line. Also used by HandBuilder
+     * Seats are numbered from 1 to MAX_SEAT (10 at a 10-max table) and used as indices, so arrays of seats have
+     * MAX_SEAT + 1 places. A seat that cannot be read or is out of range is reported, and the line should be skipped
+     * @param line the line with the seat
+     * @param colon the index of the ": " after the number of the seat
+     * @return the number of the seat, or -1 if it cannot be read or is out of range
+     */
+    static int readSeat(CharSequence line, int colon) {
+        int seat = colon > 5 ? 0 : -1;
+        for(int i = 5; i < colon && seat != -1; i++) {
+            char c = line.charAt(i);
+            seat = c >= '0' && c <= '9' && seat <= MAX_SEAT ? seat * 10 + (c - '0') : -1;
+        }
+        if(seat < 1 || seat > MAX_SEAT) {
+            System.out.println("Seat out of range in line:");
+            System.out.println(line);
+            return -1;
+        }
+        return seat;
+    }
+
+    /**
+     * Helper function to read the index of a card with Cards.getCard. Also used by HandBuilder
+     * A card that cannot be read is reported and treated as not dealt
+     * @param line the line with the card
+     * @param i the index of the card's rank in the line. The suit follows it
+     * @return the index of the card (0-51), or -1 if it cannot be read
+     */
+    static byte getCard(CharSequence line, int i) {
+        int card = Cards.getCard(line, i);
+        if(card == -1) {
+            System.out.println("Malformed card in line:");
+            System.out.println(line);
+        }
+        return (byte) card;
+    }
+
+    /**
+     * Helper function to find a word in a line without creating any Strings
+     * @param line the line to search
+     * @param word the word to find
+     * @return the index of the first occurrence of the word, or -1 if the word is not in the line
+     */
+    static int indexOf(CharSequence line, String word) {
+        if(line instanceof String) {
+            return ((String) line).indexOf(word);
+        }
+        int last = line.length() - word.length();
+        char first = word.charAt(0);
+        for(int i = 0; i <= last; i++) {
+            if(line.charAt(i) == first && startsWith(line, word, i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Helper function to check whether a word appears in a line at a given index
+     * @param line the line to check
+     * @param word the word to look for
+     * @param offset the index in the line where the word should start
+     * @return true if the word appears at the index
+     */
+    static boolean startsWith(CharSequence line, String word, int offset) {
+        if(offset < 0 || offset + word.length() > line.length()) {
+            return false;
+        }
+        for(int i = 0; i < word.length(); i++) {
+            if(line.charAt(offset + i) != word.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Helper function to read a whole number from a line without creating any Strings
+     * @param line the line with the number
+     * @param start the index of the first digit
+     * @param end the index after the last digit
+     * @return the number
+     */
+    static int parseInt(CharSequence line, int start, int end) {
+        int n = 0;
+        for(int i = start; i < end; i++) {
+            char c = line.charAt(i);
+            if(c < '0' || c > '9') {
+                throw new NumberFormatException("Not a number in line: " + line);
+            }
+            n = n * 10 + (c - '0');
+        }
+        return n;
+    }
+}
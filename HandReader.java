@@ -0,0 +1,182 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * This class reads the data by memory-mapping the file and handing each line to HandParser straight from the bytes.
+ *
+ * A Scanner decodes the file into characters, splits it with regular expressions and creates a new String for every
+ * line. HandReader instead maps the file into memory and keeps one Line object, a CharSequence that points at the bytes
+ * of the current line, so no String is created per line. The data are plain ASCII, so each byte is one character.
+ *
+ * Files larger than 2 GB cannot be mapped at once, so the file is mapped in windows of up to 1 GB. When a line runs past
+ * the end of a window, the next window is mapped starting from the beginning of that line.
+ *
+ * The rows produced are the same as those produced by reading the file with a Scanner.
+ */
+public class HandReader implements Closeable {
+    private static final long WINDOW = 1L << 30;
+
+    private final RandomAccessFile raf;
+    private final FileChannel channel;
+    private final long end;
+    private MappedByteBuffer buffer;
+    private long bufferStart;
+    private long position;
+    private final Line line = new Line();
+
+    /**
+     * Constructor for a reader over the whole file
+     * @param file the file with the data
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public HandReader(File file) throws IOException {
+        this(file, 0, file.length());
+    }
+
+    /**
+     * Constructor for a reader over part of the file
+     * @param file the file with the data
+     * @param start the byte offset of the first line to read
+     * @param end the byte offset after the last line to read
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public HandReader(File file, long start, long end) throws IOException {
+        this.raf = new RandomAccessFile(file, "r");
+        this.channel = raf.getChannel();
+        this.end = Math.min(end, channel.size());
+        this.position = start;
+        map(start);
+    }
+
+    /**
+     * Function to read every line of a file and add its rows to a Dataset
+     * @param file the file with the data
+     * @param players the names of the players whose actions are recorded, or null to record every player
+     * @param data the Dataset to add the rows to
+     * @return the number of rows added
+     * @throws IOException if the file cannot be read
+     */
+    public static int parse(File file, String[] players, Dataset data) throws IOException {
+        return parse(file, 0, file.length(), players, data);
+    }
+
+    /**
+     * Function to read the lines in part of a file and add their rows to a Dataset
+     * @param file the file with the data
+     * @param start the byte offset of the first line to read. Should be the start of a hand
+     * @param end the byte offset after the last line to read
+     * @param players the names of the players whose actions are recorded, or null to record every player
+     * @param data the Dataset to add the rows to
+     * @return the number of rows added
+     * @throws IOException if the file cannot be read
+     */
+    public static int parse(File file, long start, long end, String[] players, Dataset data) throws IOException {
+        HandParser parser = new HandParser(players, data);
+        try (HandReader reader = new HandReader(file, start, end)) {
+            while(reader.nextLine()) {
+                parser.parseLine(reader.line());
+            }
+        }
+        return parser.getRows();
+    }
+
+    /**
+     * Function to move to the next line
+     * @return true if there is another line, false at the end of the data
+     * @throws IOException if the next window of the file cannot be mapped
+     */
+    public boolean nextLine() throws IOException {
+        if(position >= end) {
+            return false;
+        }
+        int from = (int) (position - bufferStart);
+        int limit = buffer.limit();
+        int i = from;
+        while(i < limit && buffer.get(i) != '\n') {
+            i++;
+        }
+        if(i == limit && from > 0 && bufferStart + limit < end) {
+            map(position);
+            return nextLine();
+        }
+        position = bufferStart + Math.min(i + 1, limit);
+        int to = i;
+        if(to > from && buffer.get(to - 1) == '\r') {
+            to--;
+        }
+        line.set(from, to);
+        return true;
+    }
+
+    /**
+     * Function to return the current line. The same object is reused for every line
+     * @return the current line
+     */
+    public CharSequence line() {
+        return line;
+    }
+
+    /**
+     * Function to return the byte offset in the file after the current line
+     * @return the byte offset of the next line
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        raf.close();
+    }
+
+    /**
+     * Helper function to map a window of the file
+     * @param start the byte offset where the window starts
+     * @throws IOException if the window cannot be mapped
+     */
+    private void map(long start) throws IOException {
+        bufferStart = start;
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW, end - start));
+    }
+
+    /**
+     * A line of the data that reads its characters from the mapped bytes
+     */
+    private class Line implements CharSequence {
+        private int start;
+        private int length;
+
+        private void set(int from, int to) {
+            start = from;
+            length = to - from;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (buffer.get(start + index) & 0xff);
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            StringBuilder sb = new StringBuilder(to - from);
+            for(int i = from; i < to; i++) {
+                sb.append(charAt(i));
+            }
+            return sb.toString();
+        }
+
+        @Override
+        public String toString() {
+            return subSequence(0, length).toString();
+        }
+    }
+}
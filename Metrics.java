@@ -0,0 +1,329 @@
+import java.io.FileWriter;
+import java.io.FilterInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * This class records how long each stage of a run takes and how much it reads, writes and allocates.
+ *
+ * When a run is slow, the total time does not say whether it went to reading the data, building the rows or writing
+ * the files. Poker.java and Poker2.java start a stage before each step and end it after, and for each stage Metrics
+ * records:
+ *      The wall time, and the rows produced per second
+ *      The bytes read and written
+ *      The bytes allocated by every thread, including the worker threads that have ended (see allocatedBytes), and the
+ *          number and time of garbage collections
+ * At the end of the run, a table of the stages is printed and the same numbers are written to a JSON file, e.g.
+ *      {"started": "2026-10-17T06:37:14Z", "millis": 912, "stages": [
+ *        {"name": "read", "millis": 640, "rows": 254100, "rowsPerSecond": 397031, "bytesRead": 26543100, ...},
+ *        ...]}
+ * so that runs can be compared by a script.
+ *
+ * Metrics can also be registered with JMX under the name Poker:type=Metrics, so that a long run can be watched while it
+ * is in progress (see MetricsMXBean.java). JMX reads the numbers on its own threads while the run adds stages, so the
+ * stages are kept in a CopyOnWriteArrayList and the other numbers it reads are atomic or volatile.
+ *
+ * HandParser reads the cards, the bets and every other feature in the same pass over each line (see HandParser.java),
+ * so they are timed together as one stage. The JMH benchmarks in benchmarks/ time the old functions for each feature
+ * separately.
+ */
+public class Metrics implements MetricsMXBean {
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final Map<Long, Long> ALLOCATED = new ConcurrentHashMap<>();
+
+    private final long started = System.currentTimeMillis();
+    private final long startNanos = System.nanoTime();
+    private final long startAllocated = allocatedBytes();
+    private final List<String[]> stages = new CopyOnWriteArrayList<>();
+    private final AtomicLong bytesRead = new AtomicLong();
+    private volatile long rows = 0;
+
+    private volatile String stage = "";
+    private volatile long stageNanos;
+    private long stageBytesRead;
+    private long stageAllocated;
+    private long stageCollections;
+    private long stageCollectionMillis;
+
+    /**
+     * Function to register with JMX so that the run can be watched while it is in progress
+     */
+    public void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName("Poker:type=Metrics"));
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Function to start a stage. A stage that is still running is ended first
+     * @param name the name of the stage
+     */
+    public void start(String name) {
+        if(!stage.isEmpty()) {
+            end(0, 0, 0);
+        }
+        stageNanos = System.nanoTime();
+        stageBytesRead = bytesRead.get();
+        stageAllocated = allocatedBytes();
+        stageCollections = collections();
+        stageCollectionMillis = collectionMillis();
+        stage = name;
+    }
+
+    /**
+     * Function to end the stage that is running
+     * @param rows the number of rows (or other items, such as hands) the stage produced
+     * @param read the number of bytes the stage read, not counting bytes counted by a stream from countBytesRead
+     * @param written the number of bytes the stage wrote
+     */
+    public void end(long rows, long read, long written) {
+        if(stage.isEmpty()) {
+            return;
+        }
+        long nanos = System.nanoTime() - stageNanos;
+        long total = bytesRead.addAndGet(read) - stageBytesRead;
+        double perSecond = nanos == 0 ? 0 : rows / (nanos / 1e9);
+        stages.add(new String[] {
+                stage,
+                Long.toString(nanos / 1000000),
+                Long.toString(rows),
+                String.format(Locale.ROOT, "%.0f", perSecond),
+                Long.toString(total),
+                Long.toString(written),
+                Long.toString(allocatedBytes() - stageAllocated),
+                Long.toString(collections() - stageCollections),
+                Long.toString(collectionMillis() - stageCollectionMillis)});
+        this.rows += rows;
+        stage = "";
+    }
+
+    /**
+     * Function to wrap a stream so that the bytes read from it are counted in the stage that is running
+     * Used for standard input, whose size is not known in advance
+     * @param in the stream
+     * @return a stream that reads from in
+     */
+    public InputStream countBytesRead(InputStream in) {
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if(b != -1) {
+                    bytesRead.incrementAndGet();
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = super.read(b, off, len);
+                if(n > 0) {
+                    bytesRead.addAndGet(n);
+                }
+                return n;
+            }
+        };
+    }
+
+    /**
+     * Function to end the run: prints a table of the stages and writes them to a JSON file
+     * @param filename the name of the JSON file, or null to only print the table
+     */
+    public void finish(String filename) {
+        if(!stage.isEmpty()) {
+            end(0, 0, 0);
+        }
+        System.out.println(String.format(Locale.ROOT, "%-10s %10s %12s %12s %14s %14s %16s %6s", "stage", "ms", "rows", "rows/s", "bytes read", "bytes written", "bytes allocated", "GCs"));
+        for(String[] s : stages) {
+            System.out.println(String.format(Locale.ROOT, "%-10s %10s %12s %12s %14s %14s %16s %6s", s[0], s[1], s[2], s[3], s[4], s[5], s[6], s[7]));
+        }
+        if(filename != null) {
+            try (FileWriter writer = new FileWriter(filename)) {
+                writer.write(getSummary());
+                writer.write(System.lineSeparator());
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Function to add up the sizes of some files
+     * @param filenames the names of the files
+     * @return the total number of bytes. A file that does not exist counts as 0
+     */
+    public static long sizeOf(String... filenames) {
+        long size = 0;
+        for(String filename : filenames) {
+            size += new File(filename).length();
+        }
+        return size;
+    }
+
+    /**
+     * Function to add up the sizes of some files
+     * @param files the files
+     * @return the total number of bytes
+     */
+    public static long sizeOf(List<File> files) {
+        long size = 0;
+        for(File file : files) {
+            size += file.length();
+        }
+        return size;
+    }
+
+    /**
+     * Function to return the bytes allocated so far by every thread, including the threads of pools such as the ones
+     * used by DirectoryParser and EquityCalculator.
+     * The JVM only counts the allocations of threads that are running, so the last count of each thread is kept when it
+     * ends. Threads made by threadFactory record their exact count as they end. Any other thread, e.g. of the common
+     * ForkJoinPool used by ParallelParser, keeps the count from the last time this function was called while it ran
+     * @return the number of bytes, or 0 if the JVM does not count allocations
+     */
+    public static long allocatedBytes() {
+        if(!(THREADS instanceof com.sun.management.ThreadMXBean)) {
+            return 0;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+        long[] ids = threads.getAllThreadIds();
+        long[] bytes = threads.getThreadAllocatedBytes(ids);
+        for(int i = 0; i < ids.length; i++) {
+            if(bytes[i] > 0) {
+                ALLOCATED.merge(ids[i], bytes[i], Math::max);
+            }
+        }
+        long total = 0;
+        for(long b : ALLOCATED.values()) {
+            total += b;
+        }
+        return total;
+    }
+
+    /**
+     * Function to return a factory of threads for a pool of workers, whose threads record the bytes they allocated as
+     * they end, so that allocatedBytes still counts them after the pool is shut down
+     * @return the factory
+     */
+    public static ThreadFactory threadFactory() {
+        ThreadFactory factory = Executors.defaultThreadFactory();
+        return r -> factory.newThread(() -> {
+            try {
+                r.run();
+            } finally {
+                recordAllocatedBytes();
+            }
+        });
+    }
+
+    /**
+     * Helper function to record the bytes allocated by the thread that calls it, before it ends
+     */
+    private static void recordAllocatedBytes() {
+        if(THREADS instanceof com.sun.management.ThreadMXBean) {
+            long id = Thread.currentThread().getId();
+            long bytes = ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(id);
+            if(bytes > 0) {
+                ALLOCATED.merge(id, bytes, Math::max);
+            }
+        }
+    }
+
+    @Override
+    public String getStage() {
+        return stage;
+    }
+
+    @Override
+    public long getStageMillis() {
+        return stage.isEmpty() ? 0 : (System.nanoTime() - stageNanos) / 1000000;
+    }
+
+    @Override
+    public long getElapsedMillis() {
+        return (System.nanoTime() - startNanos) / 1000000;
+    }
+
+    @Override
+    public long getBytesRead() {
+        return bytesRead.get();
+    }
+
+    @Override
+    public long getRows() {
+        return rows;
+    }
+
+    @Override
+    public long getAllocatedBytes() {
+        return allocatedBytes() - startAllocated;
+    }
+
+    @Override
+    public String getSummary() {
+        String[] keys = {"name", "millis", "rows", "rowsPerSecond", "bytesRead", "bytesWritten", "bytesAllocated", "collections", "collectionMillis"};
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"started\": \"").append(Instant.ofEpochMilli(started)).append("\", \"millis\": ").append(getElapsedMillis());
+        sb.append(", \"stages\": [");
+        boolean first = true;
+        for(String[] s : stages) {
+            sb.append(first ? "\n  {" : ",\n  {");
+            first = false;
+            for(int j = 0; j < keys.length; j++) {
+                if(j > 0) {
+                    sb.append(", ");
+                }
+                sb.append('"').append(keys[j]).append("\": ");
+                if(j == 0) {
+                    sb.append('"').append(s[j].replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+                } else {
+                    sb.append(s[j]);
+                }
+            }
+            sb.append('}');
+        }
+        sb.append("]}");
+        return sb.toString();
+    }
+
+    /**
+     * Helper function to return the number of garbage collections so far
+     * @return the number of collections
+     */
+    private static long collections() {
+        long n = 0;
+        for(GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            n += Math.max(0, gc.getCollectionCount());
+        }
+        return n;
+    }
+
+    /**
+     * Helper function to return the time spent on garbage collection so far
+     * @return the number of milliseconds
+     */
+    private static long collectionMillis() {
+        long n = 0;
+        for(GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            n += Math.max(0, gc.getCollectionTime());
+        }
+        return n;
+    }
+}
@@ -0,0 +1,46 @@
+/**
+ * This interface lists what Metrics shows over JMX while a run is in progress, e.g. in jconsole under Poker:type=Metrics.
+ */
+public interface MetricsMXBean {
+    /**
+     * Function to return the name of the stage that is running
+     * @return the name, or an empty String if no stage is running
+     */
+    String getStage();
+
+    /**
+     * Function to return how long the stage that is running has been running
+     * @return the number of milliseconds, or 0 if no stage is running
+     */
+    long getStageMillis();
+
+    /**
+     * Function to return how long the run has been running
+     * @return the number of milliseconds
+     */
+    long getElapsedMillis();
+
+    /**
+     * Function to return the number of bytes read so far by the stages that are finished and the stage that is running
+     * @return the number of bytes
+     */
+    long getBytesRead();
+
+    /**
+     * Function to return the number of rows produced by the stages that are finished
+     * @return the number of rows
+     */
+    long getRows();
+
+    /**
+     * Function to return the bytes allocated by every thread since the run started
+     * @return the number of bytes
+     */
+    long getAllocatedBytes();
+
+    /**
+     * Function to return the summary of the stages so far as JSON
+     * @return the JSON
+     */
+    String getSummary();
+}
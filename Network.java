@@ -0,0 +1,470 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+/**
+ * This class runs the neural network trained in Poker.ipynb or Poker2.ipynb in Java, so that it can choose actions
+ * without Python.
+ *
+ * The weights are exported by the cell after the training cell of the notebooks to a binary file (model_weights.bin
+ * for Poker.ipynb and model_weights_2.bin for Poker2.ipynb), which has:
+ *      The int 0x504B4E31 ("PKN1"), the version and the number of layers
+ *      For each dense layer: the number of inputs and outputs, its activation (0 for linear, 1 for relu, 2 for sigmoid,
+ *          3 for softmax), the weights as a 2-D array of floats with a row for each input, and the biases
+ * All numbers are big-endian, as written by numpy with astype('>f4') and read by DataInputStream.
+ *
+ * The input is the same 367 numbers the rows of a Dataset are expanded into (see Poker.java). The output is the chance
+ * of each action: folding, checking, calling and raising. The last layer of Poker2.ipynb is a softmax, so its outputs
+ * already add up to 1. The last layer of Poker.ipynb is a sigmoid, so its outputs are divided by their sum.
+ *
+ * Every layer's outputs are kept in an array made when the network is loaded, so predicting allocates nothing and
+ * takes microseconds. This means a Network must only be used by one thread at a time; use copy() to get another
+ * Network that shares the weights.
+ *
+ * Almost all of the time is spent adding multiples of rows of weights to the outputs of a layer (see add). The Gradle
+ * build also compiles VectorKernel, which does this with the Java Vector API, and it is used when the JVM is run with
+ * --add-modules jdk.incubator.vector (see VectorKernel.java). Otherwise a plain loop is used, which the JVM vectorizes
+ * itself. Both give the same outputs.
+ */
+public class Network {
+    public static final int MAGIC = 0x504B4E31;
+    public static final int VERSION = 1;
+
+    public static final byte LINEAR = 0;
+    public static final byte RELU = 1;
+    public static final byte SIGMOID = 2;
+    public static final byte SOFTMAX = 3;
+
+    private static final int BATCH = 64;
+    private static final Kernel KERNEL = loadKernel();
+
+    /**
+     * The loop that adds a multiple of a row of weights to the outputs of a layer, see add
+     */
+    interface Kernel {
+        /**
+         * Function to add a multiple of a row of weights to the outputs of a layer
+         * @param a the multiple
+         * @param w the weights of the layer
+         * @param k the index of the row of weights
+         * @param y the outputs of the layer
+         * @param o the index of the first output
+         * @param n the number of outputs
+         */
+        void add(float a, float[] w, int k, float[] y, int o, int n);
+    }
+
+    /**
+     * The loop used when VectorKernel cannot be, kept this simple so that the JVM compiles it to instructions that
+     * handle several floats at once
+     */
+    private static final class PlainKernel implements Kernel {
+        @Override
+        public void add(float a, float[] w, int k, float[] y, int o, int n) {
+            for(int j = 0; j < n; j++) {
+                y[o + j] += a * w[k + j];
+            }
+        }
+    }
+
+    private final int[] sizes;
+    private final float[][] weights;
+    private final float[][] biases;
+    private final byte[] activations;
+    private final float[][] values;
+    private final float[][] batch;
+
+    /**
+     * Constructor for a network with the given layers
+     * @param sizes the number of inputs, followed by the number of outputs of each layer
+     * @param weights the weights of each layer, with the weight from input i to output j at index i * outputs + j
+     * @param biases the biases of each layer
+     * @param activations the activation of each layer, e.g. Network.RELU
+     */
+    public Network(int[] sizes, float[][] weights, float[][] biases, byte[] activations) {
+        this.sizes = sizes;
+        this.weights = weights;
+        this.biases = biases;
+        this.activations = activations;
+        this.values = new float[sizes.length][];
+        for(int i = 0; i < sizes.length; i++) {
+            values[i] = new float[sizes[i]];
+        }
+        this.batch = values.clone();
+    }
+
+    /**
+     * Function to load a network from the file exported by the notebooks
+     * @param filename the name of the file
+     * @return the network
+     * @throws IOException if the file cannot be read or is not a network
+     */
+    public static Network load(String filename) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(filename), 1 << 16))) {
+            if(in.readInt() != MAGIC) {
+                throw new IOException(filename + " is not a network exported by the notebooks");
+            }
+            int version = in.readInt();
+            if(version != VERSION) {
+                throw new IOException(filename + " has version " + version + " but only version " + VERSION + " can be read");
+            }
+            int layers = in.readInt();
+            int[] sizes = new int[layers + 1];
+            float[][] weights = new float[layers][];
+            float[][] biases = new float[layers][];
+            byte[] activations = new byte[layers];
+            for(int l = 0; l < layers; l++) {
+                int inputs = in.readInt();
+                int outputs = in.readInt();
+                if(l > 0 && inputs != sizes[l]) {
+                    throw new IOException("Layer " + (l + 1) + " of " + filename + " has " + inputs + " inputs but the layer before it has " + sizes[l] + " outputs");
+                }
+                sizes[l] = inputs;
+                sizes[l + 1] = outputs;
+                activations[l] = in.readByte();
+                if(activations[l] < LINEAR || activations[l] > SOFTMAX) {
+                    throw new IOException("Layer " + (l + 1) + " of " + filename + " has an unknown activation " + activations[l]);
+                }
+                weights[l] = new float[inputs * outputs];
+                for(int i = 0; i < weights[l].length; i++) {
+                    weights[l][i] = in.readFloat();
+                }
+                biases[l] = new float[outputs];
+                for(int i = 0; i < outputs; i++) {
+                    biases[l][i] = in.readFloat();
+                }
+            }
+            return new Network(sizes, weights, biases, activations);
+        }
+    }
+
+    /**
+     * Function to return another network with the same weights, for use by another thread
+     * @return a network sharing the weights of this one
+     */
+    public Network copy() {
+        return new Network(sizes, weights, biases, activations);
+    }
+
+    /**
+     * Function to return the number of inputs
+     * @return the number of inputs, 367 for the networks in the notebooks
+     */
+    public int getInputs() {
+        return sizes[0];
+    }
+
+    /**
+     * Function to return the number of outputs
+     * @return the number of outputs, 4 for the networks in the notebooks
+     */
+    public int getOutputs() {
+        return sizes[sizes.length - 1];
+    }
+
+    /**
+     * Function to return the number of layers
+     * @return the number of layers, not counting the inputs
+     */
+    public int getLayers() {
+        return weights.length;
+    }
+
+    /**
+     * Function to predict the chance of each action given the inputs
+     * @param input the inputs, e.g. 367 numbers from Dataset.getInput
+     * @param output the array the chance of each action is written to
+     */
+    public void predict(double[] input, double[] output) {
+        float[] x = values[0];
+        for(int i = 0; i < x.length; i++) {
+            x[i] = (float) input[i];
+        }
+        forward(values, 1, 0, output, 0);
+    }
+
+    /**
+     * Function to predict the chance of each action for a row of a Dataset, without expanding the row into an array
+     * The first layer only adds up the weights of the 3 numbers and at most 7 cards of the row (see firstLayer)
+     * @param data the dataset
+     * @param row the index of the row
+     * @param output the array the chance of each action is written to
+     */
+    public void predict(Dataset data, int row, double[] output) {
+        firstLayer(data, row, values[1], 0);
+        forward(values, 1, 1, output, 0);
+    }
+
+    /**
+     * Function to predict the chance of each action for many rows of a Dataset, e.g. to check the network against a large
+     * file of hands. The rows are predicted in batches of 64, so the arrays for a batch stay small enough to be fast
+     * @param data the dataset
+     * @param from the index of the first row
+     * @param rows the number of rows
+     * @param output the array the chance of each action for each row is written to, so rows * getOutputs() numbers
+     */
+    public void predict(Dataset data, int from, int rows, double[] output) {
+        ensureBatch(Math.min(rows, BATCH));
+        int n = sizes[1];
+        for(int start = 0; start < rows; start += BATCH) {
+            int size = Math.min(BATCH, rows - start);
+            for(int r = 0; r < size; r++) {
+                firstLayer(data, from + start + r, batch[1], r * n);
+            }
+            forward(batch, size, 1, output, start * getOutputs());
+        }
+    }
+
+    /**
+     * Function to predict the chance of each action for many rows at once, which is faster per row than predicting them
+     * one at a time. The arrays for a batch are made the first time a batch of that size is predicted and then kept
+     * @param inputs the inputs of each row one after another, so rows * getInputs() numbers
+     * @param rows the number of rows
+     * @param output the array the chance of each action for each row is written to, so rows * getOutputs() numbers
+     */
+    public void predict(float[] inputs, int rows, double[] output) {
+        ensureBatch(rows);
+        System.arraycopy(inputs, 0, batch[0], 0, rows * sizes[0]);
+        forward(batch, rows, 0, output, 0);
+    }
+
+    /**
+     * Function to return the action with the highest chance
+     * @param output the chance of each action, from predict
+     * @return 0 for folding, 1 for checking, 2 for calling and 3 for raising
+     */
+    public static int getAction(double[] output) {
+        int best = 0;
+        for(int i = 1; i < output.length; i++) {
+            if(output[i] > output[best]) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Helper function to run every layer on the inputs of one or more rows
+     * Each input adds its row of weights to the outputs, so an input that is 0 is skipped. Most of the 367 inputs are 0,
+     * and so are many of the outputs of a relu layer. When there are many rows, each row of weights is added to every
+     * row's outputs before moving to the next, so the weights are read from memory once per batch rather than once per row
+     * @param values the inputs of each row one after another in values[0], and arrays for the outputs of each layer
+     * @param rows the number of rows
+     * @param first the first layer to run. The outputs of the layer before it must already be in values[first]
+     * @param output the array the chance of each action for each row is written to, one row after another
+     * @param offset the index in output to write the first row to
+     */
+    private void forward(float[][] values, int rows, int first, double[] output, int offset) {
+        for(int l = first; l < weights.length; l++) {
+            float[] x = values[l];
+            float[] y = values[l + 1];
+            float[] w = weights[l];
+            int m = sizes[l];
+            int n = sizes[l + 1];
+            for(int r = 0; r < rows; r++) {
+                System.arraycopy(biases[l], 0, y, r * n, n);
+            }
+            for(int i = 0; i < m; i++) {
+                int k = i * n;
+                for(int r = 0; r < rows; r++) {
+                    float xi = x[r * m + i];
+                    if(xi == 0) {
+                        continue;
+                    }
+                    add(xi, w, k, y, r * n, n);
+                }
+            }
+            for(int r = 0; r < rows; r++) {
+                activate(activations[l], y, r * n, n);
+            }
+        }
+        float[] y = values[values.length - 1];
+        int n = getOutputs();
+        for(int r = 0; r < rows; r++) {
+            double sum = 0;
+            for(int j = r * n; j < (r + 1) * n; j++) {
+                sum += y[j];
+            }
+            for(int j = r * n; j < (r + 1) * n; j++) {
+                output[offset + j] = sum > 0 ? y[j] / sum : y[j];
+            }
+        }
+    }
+
+    /**
+     * Helper function to run the first layer on a row of a Dataset
+     * Instead of multiplying all 367 inputs by their weights, only the weights of the inputs that are not 0 are added to
+     * the biases: the 3 numbers times their weights, the weights of each card that has been dealt, since a card's
+     * input is 1, and any extra columns of the Dataset times their weights. This is at most 10 rows of weights plus one
+     * for each extra column, rather than 367
+     * @param data the dataset
+     * @param row the index of the row
+     * @param y the array the outputs of the first layer are written to
+     * @param o the index in y to write the first output to
+     */
+    private void firstLayer(Dataset data, int row, float[] y, int o) {
+        if(sizes[0] != data.getInputCount()) {
+            throw new IllegalArgumentException("The network has " + sizes[0] + " inputs but a row of the Dataset has " + data.getInputCount());
+        }
+        float[] w = weights[0];
+        int n = sizes[1];
+        System.arraycopy(biases[0], 0, y, o, n);
+        for(int i = 0; i < Dataset.SCALARS; i++) {
+            float xi = (float) data.getScalar(row, i);
+            if(xi != 0) {
+                add(xi, w, i * n, y, o, n);
+            }
+        }
+        for(int slot = 0; slot < Dataset.CARDS; slot++) {
+            int card = data.getCard(row, slot);
+            if(card != -1) {
+                add(1, w, (Dataset.SCALARS + slot * 52 + card) * n, y, o, n);
+            }
+        }
+        for(int c = 0; c < data.getColumns(); c++) {
+            float xi = (float) data.getExtra(row, c);
+            if(xi != 0) {
+                add(xi, w, (Dataset.INPUTS + c) * n, y, o, n);
+            }
+        }
+        activate(activations[0], y, o, n);
+    }
+
+    /**
+     * Helper function to add a multiple of a row of weights to the outputs of a layer
+     * This is where almost all the time is spent. KERNEL is a constant, so the JVM inlines its loop here
+     * @param a the multiple
+     * @param w the weights of the layer
+     * @param k the index of the row of weights
+     * @param y the outputs of the layer
+     * @param o the index of the first output
+     * @param n the number of outputs
+     */
+    private static void add(float a, float[] w, int k, float[] y, int o, int n) {
+        KERNEL.add(a, w, k, y, o, n);
+    }
+
+    /**
+     * Helper function to choose the loop that adds rows of weights: VectorKernel if it was compiled and the JVM has the
+     * Vector API, or else the plain loop
+     * @return the loop
+     */
+    private static Kernel loadKernel() {
+        try {
+            return (Kernel) Class.forName("VectorKernel").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return new PlainKernel();
+        }
+    }
+
+    /**
+     * Function to return the name of the loop that adds rows of weights, VectorKernel or PlainKernel
+     * @return the name
+     */
+    public static String getKernel() {
+        return KERNEL.getClass().getSimpleName();
+    }
+
+    /**
+     * Helper function to make sure the arrays for a batch can hold a number of rows
+     * @param rows the number of rows
+     */
+    private void ensureBatch(int rows) {
+        if(batch[0].length < rows * sizes[0]) {
+            for(int i = 0; i < sizes.length; i++) {
+                batch[i] = new float[rows * sizes[i]];
+            }
+        }
+    }
+
+    /**
+     * Helper function to apply an activation to the outputs of a layer for one row
+     * @param activation the activation, e.g. Network.RELU
+     * @param y the outputs of the layer
+     * @param from the index of the row's first output
+     * @param n the number of outputs
+     */
+    private static void activate(byte activation, float[] y, int from, int n) {
+        int to = from + n;
+        if(activation == RELU) {
+            for(int j = from; j < to; j++) {
+                if(y[j] < 0) {
+                    y[j] = 0;
+                }
+            }
+        } else if(activation == SIGMOID) {
+            for(int j = from; j < to; j++) {
+                y[j] = (float) (1 / (1 + Math.exp(-y[j])));
+            }
+        } else if(activation == SOFTMAX) {
+            float max = y[from];
+            for(int j = from + 1; j < to; j++) {
+                max = Math.max(max, y[j]);
+            }
+            double sum = 0;
+            for(int j = from; j < to; j++) {
+                y[j] = (float) Math.exp(y[j] - max);
+                sum += y[j];
+            }
+            for(int j = from; j < to; j++) {
+                y[j] = (float) (y[j] / sum);
+            }
+        }
+    }
+
+    public static void main(String [] args) {
+        /*
+         * Checking the network against the actions in a file of hands, like the accuracy cell of the notebooks
+         * String weightsFile: the file exported by the notebooks
+         * String filePath: the .txt file with the hands
+         * String[] players: the players whose actions are predicted
+         * int passes: the number of times every row is predicted to time the network. Only the last pass is timed, so that
+         *      the earlier ones let the JVM compile the code first
+         */
+        String weightsFile = "model_weights.bin";
+        String filePath = "pluribus_118.txt";
+        String[] players = {"Pluribus"};
+        int passes = 100;
+
+        Network network;
+        Dataset data = new Dataset();
+        try {
+            network = Network.load(weightsFile);
+            HandReader.parse(new File(filePath), players, data);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        double[] output = new double[network.getOutputs()];
+        int correct = 0;
+        for(int i = 0; i < data.size(); i++) {
+            network.predict(data, i, output);
+            if(getAction(output) == data.getAction(i)) {
+                correct++;
+            }
+        }
+        System.out.println("Correct: " + correct + "  Incorrect: " + (data.size() - correct) + " accuracy: " + (double) correct / data.size());
+
+        long time = 0;
+        for(int pass = 0; pass < passes; pass++) {
+            long start = System.nanoTime();
+            for(int i = 0; i < data.size(); i++) {
+                network.predict(data, i, output);
+            }
+            time = System.nanoTime() - start;
+        }
+        System.out.println("Adding rows of weights with " + getKernel());
+        System.out.println("Microseconds per prediction: " + time / 1000.0 / Math.max(1, data.size()));
+
+        double[] outputs = new double[data.size() * network.getOutputs()];
+        for(int pass = 0; pass < passes; pass++) {
+            long start = System.nanoTime();
+            network.predict(data, 0, data.size(), outputs);
+            time = System.nanoTime() - start;
+        }
+        System.out.println("Microseconds per prediction in batches: " + time / 1000.0 / Math.max(1, data.size()));
+    }
+}
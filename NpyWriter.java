@@ -0,0 +1,137 @@
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * This class exports a Dataset as binary NumPy files, which python can load without parsing any text.
+ *
+ * Writing every number as text and parsing it back with pandas takes longer than training on large datasets. A .npy
+ * file is a short header describing the array followed by the raw numbers, so python can load it with
+ *      inputs = np.load('input_data.npy')
+ * or map it into memory without reading it with np.load('input_data.npy', mmap_mode='r').
+ *
+ * The arrays are written as follows:
+ *      The inputs are 32-bit floats with one row of 367 numbers for each play, in the layout described in Poker.java,
+ *          followed by any extra columns of the Dataset
+ *      The outputs are 8-bit unsigned integers (0 or 1) with one row of 4 numbers for each play
+ * A .npz file holds both arrays, named "inputs" and "outputs", in one compressed zip file. It is smaller on disk since
+ * most of the numbers are zeros, but it cannot be mapped into memory.
+ *
+ * See https://numpy.org/doc/stable/reference/generated/numpy.lib.format.html for the format.
+ */
+public class NpyWriter {
+    private static final int BUFFER = 1 << 16;
+
+    /**
+     * Function to export the inputs and outputs as two .npy files
+     * @param data the Dataset to export
+     * @param filename1 the name of the .npy to export the inputs to
+     * @param filename2 the name of the .npy to export the outputs to
+     * @throws IOException if a file cannot be written
+     */
+    public static void exportToNPY(Dataset data, String filename1, String filename2) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(filename1), BUFFER)) {
+            writeInputs(data, out);
+        }
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(filename2), BUFFER)) {
+            writeOutputs(data, out);
+        }
+    }
+
+    /**
+     * Function to export the inputs and outputs as one compressed .npz file
+     * @param data the Dataset to export
+     * @param filename the name of the .npz to export to
+     * @throws IOException if the file cannot be written
+     */
+    public static void exportToNPZ(Dataset data, String filename) throws IOException {
+        try (ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(filename), BUFFER))) {
+            zip.putNextEntry(new ZipEntry("inputs.npy"));
+            writeInputs(data, zip);
+            zip.closeEntry();
+            zip.putNextEntry(new ZipEntry("outputs.npy"));
+            writeOutputs(data, zip);
+            zip.closeEntry();
+        }
+    }
+
+    /**
+     * Function to write the inputs as a .npy array of 32-bit floats
+     * @param data the Dataset to write
+     * @param out the stream to write to
+     * @throws IOException if the stream cannot be written
+     */
+    public static void writeInputs(Dataset data, OutputStream out) throws IOException {
+        writeHeader(out, "<f4", data.size(), data.getInputCount());
+        ByteBuffer row = ByteBuffer.allocate(data.getInputCount() * 4).order(ByteOrder.LITTLE_ENDIAN);
+        byte[] bytes = row.array();
+        for(int i = 0; i < data.size(); i++) {
+            Arrays.fill(bytes, (byte) 0);
+            for(int j = 0; j < Dataset.SCALARS; j++) {
+                row.putFloat(j * 4, (float) data.getScalar(i, j));
+            }
+            for(int slot = 0; slot < Dataset.CARDS; slot++) {
+                int card = data.getCard(i, slot);
+                if(card != -1) {
+                    row.putFloat((Dataset.SCALARS + slot * 52 + card) * 4, 1.0f);
+                }
+            }
+            for(int c = 0; c < data.getColumns(); c++) {
+                row.putFloat((Dataset.INPUTS + c) * 4, (float) data.getExtra(i, c));
+            }
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Function to write the outputs as a .npy array of 8-bit unsigned integers
+     * @param data the Dataset to write
+     * @param out the stream to write to
+     * @throws IOException if the stream cannot be written
+     */
+    public static void writeOutputs(Dataset data, OutputStream out) throws IOException {
+        writeHeader(out, "|u1", data.size(), Dataset.OUTPUTS);
+        byte[] row = new byte[Dataset.OUTPUTS];
+        for(int i = 0; i < data.size(); i++) {
+            Arrays.fill(row, (byte) 0);
+            int action = data.getAction(i);
+            if(action != -1) {
+                row[action] = 1;
+            }
+            out.write(row);
+        }
+    }
+
+    /**
+     * Helper function to write the header of a version 1.0 .npy file for a 2-D array in row-major order
+     * The header is padded with spaces so that the numbers start at a multiple of 64 bytes
+     * @param out the stream to write to
+     * @param descr the type of the numbers, e.g. "<f4" for little-endian 32-bit floats
+     * @param rows the number of rows
+     * @param columns the number of columns
+     * @throws IOException if the stream cannot be written
+     */
+    private static void writeHeader(OutputStream out, String descr, int rows, int columns) throws IOException {
+        StringBuilder header = new StringBuilder();
+        header.append("{'descr': '").append(descr).append("', 'fortran_order': False, 'shape': (")
+                .append(rows).append(", ").append(columns).append("), }");
+        int unpadded = 10 + header.length() + 1;
+        int padding = (64 - unpadded % 64) % 64;
+        for(int i = 0; i < padding; i++) {
+            header.append(' ');
+        }
+        header.append('\n');
+        byte[] text = header.toString().getBytes(StandardCharsets.US_ASCII);
+        out.write(new byte[] {(byte) 0x93, 'N', 'U', 'M', 'P', 'Y', 1, 0});
+        out.write(text.length & 0xff);
+        out.write((text.length >> 8) & 0xff);
+        out.write(text);
+    }
+}
@@ -0,0 +1,149 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This class parses one file on several threads at once.
+ *
+ * Each hand in the data is independent of the others: every piece of state HandParser keeps is reset at the start of a
+ * hand (the "PokerStars Hand #" line) or before anyone acts in it. The file can therefore be cut into chunks that each
+ * start at a "PokerStars Hand #" line, and every chunk can be parsed by its own HandParser on a ForkJoinPool.
+ *
+ * Each chunk adds its rows to its own Dataset. When every chunk is done, the Datasets are joined in the order of the
+ * chunks, so the rows are in the same order as if the file were read from start to end.
+ */
+public class ParallelParser {
+    private static final long MIN_CHUNK = 1L << 20;
+
+    private final File file;
+    private final String[] players;
+    private final ForkJoinPool pool;
+    private final boolean state;
+    private final long[] bounds;
+
+    /**
+     * Constructor for a parser that splits the file into chunks for the threads of a pool
+     * @param file the file with the data
+     * @param players the names of the players whose actions are recorded, or null to record every player
+     * @param pool the pool to parse the chunks on
+     * @param state true to add the columns of the state of the betting to each row (see HandParser.addColumns)
+     * @throws IOException if the file cannot be read
+     */
+    public ParallelParser(File file, String[] players, ForkJoinPool pool, boolean state) throws IOException {
+        this.file = file;
+        this.players = players;
+        this.pool = pool;
+        this.state = state;
+        long chunks = Math.max(1, Math.min((long) pool.getParallelism() * 4, file.length() / MIN_CHUNK));
+        this.bounds = split(file, (int) chunks);
+    }
+
+    /**
+     * Function to parse every chunk on the pool
+     * @return a Dataset with every play in the file, in the order of the file
+     * @throws IOException if the file cannot be read
+     */
+    public Dataset parse() throws IOException {
+        Dataset[] parts = new Dataset[bounds.length - 1];
+        try {
+            pool.invoke(new ChunkTask(0, parts.length, parts));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return Dataset.concat(parts);
+    }
+
+    /**
+     * Function to return the number of chunks the file was split into
+     * @return the number of chunks
+     */
+    public int getChunks() {
+        return bounds.length - 1;
+    }
+
+    /**
+     * Function to find where to split a file so that each chunk starts with a "PokerStars Hand #" line
+     * @param file the file with the data
+     * @param chunks the number of chunks wanted. There may be fewer if the hands are long compared to the file
+     * @return the byte offsets where the chunks start, followed by the length of the file
+     * @throws IOException if the file cannot be read
+     */
+    public static long[] split(File file, int chunks) throws IOException {
+        long size = file.length();
+        long[] bounds = new long[chunks + 1];
+        int n = 1;
+        for(int k = 1; k < chunks; k++) {
+            long guess = Math.max(size / chunks * k, bounds[n - 1] + 1);
+            long b = nextHand(file, guess, size);
+            if(b >= size) {
+                break;
+            }
+            bounds[n++] = b;
+        }
+        bounds[n++] = size;
+        return Arrays.copyOf(bounds, n);
+    }
+
+    /**
+     * Helper function to find the first "PokerStars Hand #" line at or after a byte offset
+     * @param file the file with the data
+     * @param from the byte offset to start looking from
+     * @param size the length of the file
+     * @return the byte offset of the line, or the length of the file if there is none
+     * @throws IOException if the file cannot be read
+     */
+    private static long nextHand(File file, long from, long size) throws IOException {
+        if(from >= size) {
+            return size;
+        }
+        try (HandReader reader = new HandReader(file, from, size)) {
+            long start = from;
+            while(reader.nextLine()) {
+                if(HandParser.startsWith(reader.line(), "PokerStars Hand #", 0)) {
+                    return start;
+                }
+                start = reader.getPosition();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * A task that parses a range of chunks, splitting the range in half until there is one chunk per task
+     */
+    private class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int lo;
+        private final int hi;
+        private final Dataset[] parts;
+
+        private ChunkTask(int lo, int hi, Dataset[] parts) {
+            this.lo = lo;
+            this.hi = hi;
+            this.parts = parts;
+        }
+
+        @Override
+        protected void compute() {
+            if(hi - lo > 1) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new ChunkTask(lo, mid, parts), new ChunkTask(mid, hi, parts));
+                return;
+            }
+            try {
+                Dataset part = new Dataset();
+                if(state) {
+                    HandParser.addColumns(part);
+                }
+                HandReader.parse(file, bounds[lo], bounds[lo + 1], players, part);
+                parts[lo] = part;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
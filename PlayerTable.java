@@ -0,0 +1,192 @@
+import java.util.Arrays;
+
+/**
+ * This class gives each player a small whole number (an id) the first time their name is seen, so that the rest of the
+ * parsing can work with ints instead of Strings.
+ *
+ * HandParser finds the players from the "Seat 1: Bill (10000 in chips)" lines rather than from a list written in the
+ * code, and finds the player acting in a line like "Bill: raises 125 to 225" by looking up the text before ": " once,
+ * instead of checking the line against the name of every player. The names are kept in an open-addressing hash table:
+ *      The hash of a name is computed from the characters of the line, the same way as String.hashCode
+ *      Each slot of the table holds an id plus one, or 0 if it is empty. A name is found by stepping from the slot of its
+ *          hash to the next slot until it finds the name or an empty slot
+ *      The table is doubled when it is half full, so a lookup takes one or two steps however many players there are
+ * A name is only copied into a new String the first time it is seen, so a table of thousands of players costs nothing per
+ * line once every player has sat down.
+ *
+ * The players whose actions are recorded are added first, so they have the lowest ids, and every player
+ * found later is not recorded. If no players are given, every player is recorded.
+ */
+public class PlayerTable {
+    private String[] names = new String[16];
+    private int[] hashes = new int[16];
+    private int[] slots = new int[32];
+    private int size = 0;
+    private int longest = 0;
+    private final int recorded;
+
+    /**
+     * Constructor for a table that records the actions of some players
+     * @param players the names of the players whose actions are recorded, or null to record every player
+     */
+    public PlayerTable(String[] players) {
+        if(players == null) {
+            recorded = -1;
+            return;
+        }
+        for(String name : players) {
+            intern(name, 0, name.length());
+        }
+        recorded = size;
+    }
+
+    /**
+     * Function to find the id of a name in a line, adding the name to the table if it is new
+     * @param line the line with the name
+     * @param start the index of the first character of the name
+     * @param end the index after the last character of the name
+     * @return the id of the player
+     */
+    public int intern(CharSequence line, int start, int end) {
+        int hash = hash(line, start, end);
+        int slot = find(line, start, end, hash);
+        if(slots[slot] != 0) {
+            return slots[slot] - 1;
+        }
+        if(size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        names[size] = line.subSequence(start, end).toString();
+        hashes[size] = hash;
+        longest = Math.max(longest, end - start);
+        slots[slot] = ++size;
+        if(size * 2 > slots.length) {
+            rehash();
+        }
+        return size - 1;
+    }
+
+    /**
+     * Function to find the id of a name in a line without adding it
+     * @param line the line with the name
+     * @param start the index of the first character of the name
+     * @param end the index after the last character of the name
+     * @return the id of the player, or -1 if the name has not been seen
+     */
+    public int find(CharSequence line, int start, int end) {
+        return slots[find(line, start, end, hash(line, start, end))] - 1;
+    }
+
+    /**
+     * Function to find the id of the name that starts at an index of a line and ends where a separator starts, e.g. the
+     * player acting in "Bill: raises 125 to 225" with the separator ": ". The hash is computed in the same scan that looks
+     * for the separator, and the scan stops after the longest name seen, so a line that does not start with a name is only
+     * read as far as the length of a name
+     * @param line the line with the name
+     * @param start the index of the first character of the name
+     * @param separator the text that follows the name
+     * @return the id of the player, or -1 if the separator is not in the line or the name has not been seen
+     */
+    public int findBefore(CharSequence line, int start, String separator) {
+        char first = separator.charAt(0);
+        int last = Math.min(line.length() - separator.length(), start + longest);
+        int hash = 0;
+        for(int i = start; i <= last; i++) {
+            char c = line.charAt(i);
+            if(c == first && HandParser.startsWith(line, separator, i)) {
+                return slots[find(line, start, i, hash)] - 1;
+            }
+            hash = 31 * hash + c;
+        }
+        return -1;
+    }
+
+    /**
+     * Function to return the name of a player
+     * @param id the id of the player
+     * @return the name
+     */
+    public String getName(int id) {
+        return names[id];
+    }
+
+    /**
+     * Function to return the number of players seen so far
+     * @return the number of players
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Function to check whether the actions of a player are recorded
+     * @param id the id of the player
+     * @return true if the player is one of the recorded players, or every player is recorded
+     */
+    public boolean isRecorded(int id) {
+        return recorded == -1 || id < recorded;
+    }
+
+    /**
+     * Helper function to find the slot of a name: the slot that holds it, or the empty slot where it would be added
+     * @param line the line with the name
+     * @param start the index of the first character of the name
+     * @param end the index after the last character of the name
+     * @param hash the hash of the name
+     * @return the index of the slot
+     */
+    private int find(CharSequence line, int start, int end, int hash) {
+        int mask = slots.length - 1;
+        int slot = mix(hash) & mask;
+        while(slots[slot] != 0) {
+            int id = slots[slot] - 1;
+            if(hashes[id] == hash && names[id].length() == end - start && HandParser.startsWith(line, names[id], start)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Helper function to double the number of slots and put every id back in
+     */
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for(int id = 0; id < size; id++) {
+            int slot = mix(hashes[id]) & mask;
+            while(slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+    }
+
+    /**
+     * Helper function to compute the hash of a name in a line, the same as String.hashCode of the name
+     * @param line the line with the name
+     * @param start the index of the first character of the name
+     * @param end the index after the last character of the name
+     * @return the hash
+     */
+    private static int hash(CharSequence line, int start, int end) {
+        int hash = 0;
+        for(int i = start; i < end; i++) {
+            hash = 31 * hash + line.charAt(i);
+        }
+        return hash;
+    }
+
+    /**
+     * Helper function to spread the bits of a hash, so that names that differ only in their last characters do not fall
+     * in neighbouring slots
+     * @param hash the hash
+     * @return the mixed hash
+     */
+    private static int mix(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
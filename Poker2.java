@@ -1,6 +1,6 @@
-import java.io.FileWriter;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.io.File;
@@ -62,7 +62,8 @@ import java.io.FileNotFoundException;
  * 
  * The program:
  * The program sifts through either of the two files and then exports two 2-D arrays as .csv files.
- * In contrast to Poker.java, in this program, each function goes through the data for every player in the data
+ * In contrast to Poker.java, in this program, each function goes through the data for every player in the data.
+ * main() reads the data once with HandParser, which tracks every seat at the table and writes the rows for all players together.
  * One .csv file represents inputs to the neural network. The inputs are formatted as a 2-D array as follows:
  *      Each row represents the information that a player in the data has before taking a certain action. Note that there may be multiple actions per hand
  *      The first number is the player's position at the table
@@ -96,116 +97,298 @@ import java.io.FileNotFoundException;
  */
 
 public class Poker2 {
+    /**
+     * The number at the end of a line, e.g. 225 in "MrBlue: raises 125 to 225", used by getBets. It is compiled once
+     * rather than for every line. HandParser reads the same number with an ActionTokenizer instead
+     */
+    private static final Pattern NUMBER_AT_END = Pattern.compile("\\d+$");
+
     public static void main(String [] args) {
         System.out.println("Testing push");
 
         /*
          * Importing the .txt file with the data
+         * filePath can also be a directory or a glob (e.g. ".../sessions/pluribus_*.txt") to read many files into one dataset,
+         * or "-" to read the data from standard input (e.g. cat pluribus_*.txt | java Poker), which is read with a Scanner
          */
         String filePath = "/Users/dariosoatto/Documents/Programming/Poker Project/Poker/pluribus_118.txt";
         File file = new File(filePath);
 
         /*
-         * Calculating the number of plays, or actions taken by each player
-         * int plays: the number of plays
+         * Choosing how to read the data
+         * boolean mapped: true to memory-map the file and read each line straight from its bytes (see HandReader.java),
+         *      false to read the file with a Scanner. Both produce the same rows
+         * boolean parallel: true to split the mapped file at the start of hands and parse the pieces on every core
+         *      (see ParallelParser.java). Only used when mapped is true
+         * int threads: the number of files read at once when filePath names many files (see DirectoryParser.java)
+         * boolean cache: true to save the hands read from each file in a binary file next to it (see HandCache.java)
+         *      and load them from there on later runs instead of reading the text. The cache is read again if the file changes
+         * boolean follow: true to keep watching filePath while it is still being written to (see HandFollower.java). Only the
+         *      hands added since the last check are read, and their rows are added to the end of the .csv files below. The
+         *      state columns are added if state is true, but not the extra columns below
+         * long interval: the number of milliseconds to wait between checks for new hands when follow is true
+         * String metricsFile: the name of the file the time, rows, bytes and allocations of each stage are written to as JSON
+         *      (see Metrics.java), e.g. "metrics.json", or null to only print them
+         * boolean jmx: true to also show the metrics over JMX while the program runs, e.g. in jconsole
+         * boolean state: true to add the pot, the player's stack, the amount to call and the street before each play as
+         *      extra columns while the data is read (see HandParser.java). They are exported before the columns added below
+         * String[] players: the names of the players whose plays are recorded, or null to record every player found in the
+         *      "Seat 1: Bill (10000 in chips)" lines (see PlayerTable.java)
+         * String filename1 and String filename2: the names of the files the inputs and outputs are exported to
          */
+        boolean mapped = true;
+        boolean parallel = true;
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean cache = false;
+        boolean follow = false;
+        long interval = 5000;
+        String metricsFile = null;
+        boolean jmx = false;
+        boolean state = false;
+        String[] players = null;
+        String filename1 = "input_validation_data_2.csv";
+        String filename2 = "output_validation_data_2.csv";
 
-        String[] players = {"Pluribus", "Bill", "Budd", "Eddie", "Gogo", "Hattori", "Joe", "MrBlonde", "MrBlue", "MrBrown", "MrOrange", "MrPink", "MrWhite"};
-        Scanner scanner0;
-        try {
-            scanner0 = new Scanner(file);
-        } catch (FileNotFoundException e) {
-            e.printStackTrace();
+        if(follow) {
+            try {
+                new HandFollower(file, players, state, filename1, filename2).follow(interval);
+            } catch (IOException | InterruptedException e) {
+                e.printStackTrace();
+            }
             return;
         }
-        int plays = getPlays(file, players);
-        System.out.println(plays);
-
-        
-
 
-        /*
-         * Getting the hole cards held by the player each play
-         * double[][] hands: an array where each row represents the hole cards pluribus had in that play encoded as a one-hot vector
-         */
-        
-        double[][] hands = getHands(file, plays, players);
-        //System.out.println(Arrays.deepToString(hands));
+        Metrics metrics = new Metrics();
+        if(jmx) {
+            metrics.register();
+        }
 
-        
         /*
-         * Getting the community cards
-         * double[][] tables: an array where each row represents the community cards in that play encoded as a one-hot vector
+         * Splitting the data into a training set and a validation set while it is read, instead of reading one file for each
+         * (see DatasetSplitter.java). Every play of a hand goes to the same set, and the rows of each set are shuffled
+         * boolean split: true to write the four files below in one pass through filePath and stop. The state columns above are
+         *      added, but not the extra columns below, and the files are always .csv
+         * double validation: the fraction of hands put in the validation set
+         * long seed: the seed of the split and the shuffle, so the same data gives the same files
+         * int shuffleBuffer: the number of rows of each set kept in memory to shuffle them. A buffer at least as large as
+         *      the set shuffles it fully
+         * String[] splitFiles: the inputs and outputs of the training set, then the inputs and outputs of the validation set
          */
-        
-        double[][] tables = getTables(file, plays, players);
-        //System.out.println(Arrays.deepToString(tables));
-
+        boolean split = false;
+        double validation = 0.1;
+        long seed = 1;
+        int shuffleBuffer = 100000;
+        String[] splitFiles = {"input_data_2.csv", "output_data_2.csv", "input_validation_data_2.csv", "output_validation_data_2.csv"};
+
+        if(split) {
+            metrics.start("split");
+            long read;
+            DatasetSplitter splitter;
+            try {
+                splitter = new DatasetSplitter(players, state, validation, seed, shuffleBuffer, splitFiles);
+                if(filePath.equals("-")) {
+                    splitter.parse(new Scanner(metrics.countBytesRead(System.in)));
+                    read = 0;
+                } else if(DirectoryParser.isMany(filePath)) {
+                    List<File> files = DirectoryParser.findFiles(filePath);
+                    for(File f : files) {
+                        splitter.parse(f);
+                    }
+                    read = Metrics.sizeOf(files);
+                } else {
+                    splitter.parse(file);
+                    read = file.length();
+                }
+                splitter.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+                return;
+            }
+            System.out.println(splitter.getTrainingRows() + " training rows, " + splitter.getValidationRows() + " validation rows");
+            metrics.end(splitter.getTrainingRows() + splitter.getValidationRows(), read, Metrics.sizeOf(splitFiles));
+            metrics.finish(metricsFile);
+            return;
+        }
 
         /*
-         * Getting the highest bet in each round
-         * double[] bets: an array containing the log base 5 of the bet in each play
-         */
-        
-        double[] bets = getBets(file, plays, players);
-        //System.out.println(Arrays.toString(bets));
-        
-        /*
-         * Getting the seat that Pluribus has in each play
-         * double[] seats: an array containing Pluribus's seat in each play
+         * Getting the inputs and outputs for every play in a single pass through the data
+         * The rows are added to the Dataset as they are read, so the number of plays is only known at the end
+         * Dataset data: the rows of inputs and outputs, with the cards stored as indices rather than one-hot vectors (see Dataset.java)
+         *      Each row of inputs represents the information the player has before each play
+         *      (seat, players left, highest bet, hole cards and community cards)
+         *      Each row of outputs represents the action taken by the player: folding, checking, calling, or raising
+         *      The rows are in the order the plays appear in the data rather than grouped by player
          */
-       
-        double[] seats = getSeats(file, plays, players);
-        //System.out.println(Arrays.toString(seats));
-
-
+        Dataset data;
+        if(filePath.equals("-")) {
+            metrics.start("read");
+            Scanner scanner1 = new Scanner(metrics.countBytesRead(System.in));
+            data = new Dataset();
+            if(state) {
+                HandParser.addColumns(data);
+            }
+            HandParser.parse(scanner1, players, data);
+            metrics.end(data.size(), 0, 0);
+        } else if(DirectoryParser.isMany(filePath)) {
+            try {
+                List<File> files = DirectoryParser.findFiles(filePath);
+                metrics.start("read");
+                data = new DirectoryParser(files, players, threads, cache, state).parse();
+                metrics.end(data.size(), Metrics.sizeOf(files), 0);
+            } catch (IOException e) {
+                e.printStackTrace();
+                return;
+            }
+        } else if(cache) {
+            try {
+                metrics.start("load");
+                List<Hand> hands = HandCache.load(file);
+                metrics.end(hands.size(), HandCache.getCacheFile(file).length(), 0);
+                metrics.start("extract");
+                data = new Dataset();
+                if(state) {
+                    HandParser.addColumns(data);
+                }
+                HandParser.parse(hands, players, data);
+                metrics.end(data.size(), 0, 0);
+            } catch (IOException e) {
+                e.printStackTrace();
+                return;
+            }
+        } else if(mapped) {
+            try {
+                metrics.start("read");
+                if(parallel) {
+                    data = new ParallelParser(file, players, ForkJoinPool.commonPool(), state).parse();
+                } else {
+                    data = new Dataset();
+                    if(state) {
+                        HandParser.addColumns(data);
+                    }
+                    HandReader.parse(file, players, data);
+                }
+                metrics.end(data.size(), file.length(), 0);
+            } catch (IOException e) {
+                e.printStackTrace();
+                return;
+            }
+        } else {
+            Scanner scanner1;
+            try {
+                scanner1 = new Scanner(file);
+            } catch (FileNotFoundException e) {
+                e.printStackTrace();
+                return;
+            }
+            metrics.start("read");
+            data = new Dataset();
+            if(state) {
+                HandParser.addColumns(data);
+            }
+            HandParser.parse(scanner1, players, data);
+            scanner1.close();
+            metrics.end(data.size(), file.length(), 0);
+        }
+        System.out.println(data.size());
+        //System.out.println(Arrays.deepToString(data.getInputs()));
+        //System.out.println(Arrays.deepToString(data.getOutputs()));
 
         /*
-         * Getting the number of players left when the player makes each play
-         * double[] pl: an array containing the number of players left at each play
+         * Keeping each distinct row once, with the number of times it was seen, so the exported files are smaller and the
+         * network trains faster on the same information (see Deduplicator.java)
+         * boolean dedup: true to replace the duplicate rows with a "weight" column, added after every other extra column
+         *      below. In Poker2.ipynb, remove the last column of the inputs and pass it to model.fit as sample_weight
+         *      Rows are only the same if every extra column is the same, so the rows are counted before the columns below are
+         *      added, which also means each column is only computed once for each distinct row
          */
-        
-        double [] pl = getPl(file, plays, players);
-        //System.out.println(Arrays.toString(pl));
+        boolean dedup = false;
+        Deduplicator deduplicator = null;
+        if(dedup) {
+            metrics.start("dedup");
+            deduplicator = new Deduplicator(data);
+            deduplicator.addAll(data);
+            data = deduplicator.getRows();
+            metrics.end(deduplicator.getSeen(), 0, 0);
+            System.out.println(data.size() + " distinct rows");
+        }
 
         /*
-         * Compiling all of the above arrays into one 2-D array
+         * Adding extra columns of inputs, which are exported after the 367 numbers in the order below
+         * The shape of tf.keras.Input in Poker2.ipynb must be widened by the number of columns added
+         * boolean strength: true to add the rank and category of the player's hand (see HandEvaluator.java)
+         * boolean equity: true to add the equity of the player's hand against random hands for each of the other players
+         *      left, estimated with rollouts on int threads threads (see EquityCalculator.java)
+         * int rollouts: the most rollouts dealt for each play
+         * double tolerance: how close the estimate of each equity must be to the true equity, at 95% confidence
+         * boolean preflop: true to add the equity of the player's hole cards before the flop, looked up in the table saved in
+         *      String preflopFile (see PreflopTable.java). When equity is also true, the equity of plays before the flop is
+         *      looked up in the same table instead of estimated
          */
-        double[][] inputs = new double[plays][hands[0].length + tables[0].length + 3];
-        for(int i = 0; i < plays; i++) {
-            inputs[i][0] = seats[i];
-            inputs[i][1] = pl[i];
-            inputs[i][2] = bets[i];
-            for(int j = 3; j < hands[0].length + 3; j++) {
-                inputs[i][j] = hands[i][j-3];
+        boolean strength = false;
+        boolean equity = false;
+        int rollouts = 10000;
+        double tolerance = 0.01;
+        boolean preflop = false;
+        String preflopFile = "preflop_equity.csv";
+        if(strength) {
+            metrics.start("evaluate");
+            HandEvaluator.addColumns(data);
+            metrics.end(data.size(), 0, 0);
+        }
+        PreflopTable table = null;
+        if(preflop) {
+            metrics.start("preflop");
+            try {
+                table = PreflopTable.load(new File(preflopFile), threads);
+            } catch (IOException e) {
+                e.printStackTrace();
+                return;
             }
-            for(int j = hands[0].length + 3; j < hands[0].length + tables[0].length + 3; j++) {
-                inputs[i][j] = tables[i][j - 3 - hands[0].length];
+            table.addColumn(data);
+            metrics.end(data.size(), Metrics.sizeOf(preflopFile), 0);
+        }
+        if(equity) {
+            metrics.start("equity");
+            try {
+                EquityCalculator.addColumn(data, threads, 1, rollouts, tolerance, table);
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+                return;
             }
-
+            metrics.end(data.size(), 0, 0);
         }
-        //System.out.println(Arrays.deepToString(inputs));
-
-        
-        
-
 
         /*
-         * Getting the action taken by the player each play
-         * double[][] outputs: an array where each row represents the action taken by Pluribus encoded as a one-hot vector
-         * Index 0 is folding, 1 is checking, 2 is calling, and 3 is raising
+         * Exporting the inputs and outputs. The rows are expanded into the 367 and 4 numbers described above
+         * String format: "csv" to export two .csv files named filename1 and filename2,
+         *      "npy" to export two binary NumPy files named like filename1 and filename2 but ending in .npy (see NpyWriter.java),
+         *      or "npz" to export both arrays in one compressed file named like filename1 but ending in .npz
+         *      The binary files are much faster to load in Poker2.ipynb than the .csv files
          */
-        
-        double [][] outputs = getOutputs(file, plays, players);
-        //System.out.println(Arrays.deepToString(outputs));
-        
-        /*
-         * Exporting inputs[][] and outputs[][] as .csv files
-         */
-        String filename1 = "input_validation_data_2.csv";
-        exportToCSV(inputs, filename1);
-        String filename2 = "output_validation_data_2.csv";
-        exportToCSV(outputs, filename2);
+        if(deduplicator != null) {
+            deduplicator.addColumn();
+        }
+        String format = "csv";
+        metrics.start("export");
+        if(format.equals("npy")) {
+            try {
+                NpyWriter.exportToNPY(data, filename1.replace(".csv", ".npy"), filename2.replace(".csv", ".npy"));
+                metrics.end(data.size(), 0, Metrics.sizeOf(filename1.replace(".csv", ".npy"), filename2.replace(".csv", ".npy")));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        } else if(format.equals("npz")) {
+            try {
+                NpyWriter.exportToNPZ(data, filename1.replace(".csv", ".npz"));
+                metrics.end(data.size(), 0, Metrics.sizeOf(filename1.replace(".csv", ".npz")));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        } else {
+            data.exportToCSV(filename1, filename2);
+            metrics.end(data.size(), 0, Metrics.sizeOf(filename1, filename2));
+        }
+        metrics.finish(metricsFile);
 
     }
 
@@ -288,10 +471,8 @@ public class Poker2 {
             String line = scanner1.nextLine();
             if(line.indexOf("Dealt to " + x) != -1) {
                 int i = line.indexOf("Dealt to " + x);
-                String s = line.substring(i + 11 + x.length(), i + 13 + x.length());
-                double[] c1 = getCard(s);
-                s = line.substring(i + 14 + x.length(), i + 16 + x.length());
-                double[] c2 = getCard(s);
+                double[] c1 = getCard(line, i + 11 + x.length());
+                double[] c2 = getCard(line, i + 14 + x.length());
                 for(int j = 0; j < 52; j++) {
                     hand[j] = c1[j];
                 }
@@ -326,14 +507,10 @@ public class Poker2 {
             while(scanner2.hasNextLine()) {
                 String line = scanner2.nextLine();
                 if(line.indexOf("FLOP") != -1) {
-                    System.out.println(line);
                     int index = line.indexOf("FLOP");
-                    String s = line.substring(index + 10, index + 12);
-                    double [] c1 = getCard(s);  
-                    s = line.substring(index + 13, index + 15);
-                    double [] c2 = getCard(s);
-                    s = line.substring(index + 16, index + 18);
-                    double [] c3 = getCard(s);
+                    double [] c1 = getCard(line, index + 10);
+                    double [] c2 = getCard(line, index + 13);
+                    double [] c3 = getCard(line, index + 16);
                     for(int j = 0; j < 52; j++) {
                         table[j] = c1[j];
                     }
@@ -345,15 +522,13 @@ public class Poker2 {
                     }
                 } else if(line.indexOf("TURN") != -1) {
                     int index = line.indexOf("TURN");
-                    String s = line.substring(index + 21, index + 23);
-                    double [] c4 = getCard(s);
+                    double [] c4 = getCard(line, index + 21);
                     for(int j = 156; j < 208; j++) {
                         table[j] = c4[j-156];
                     }
                 } else if(line.indexOf("RIVER") != -1) {
                     int index = line.indexOf("RIVER");
-                    String s = line.substring(index + 27, index + 29);
-                    double [] c5 = getCard(s);
+                    double [] c5 = getCard(line, index + 27);
                     for(int j = 208; j < 260; j++) {
                         table[j] = c5[j-208];
                     }
@@ -397,8 +572,7 @@ public class Poker2 {
                     bet = 100;
                 }
                 if((line.indexOf("raises") != -1 || line.indexOf("bets") != -1 ) && line.indexOf(x) == -1) {
-                    Pattern pattern = Pattern.compile("\\d+$");
-                    Matcher matcher = pattern.matcher(line);
+                    Matcher matcher = NUMBER_AT_END.matcher(line);
                     if (matcher.find()) {
                         // Get the matched number as a string
                         String numberAsString = matcher.group();
@@ -567,59 +741,21 @@ public class Poker2 {
 
     /**
      * Helper function to encode a card as a one-hot vector given its string format
-     * @param st the card represented as a string
+     * The card is looked up with Cards.getCard. A card that cannot be read is reported and encoded as all zeros
+     * @param line the line with the card
+     * @param i the index of the card's rank in the line. The suit follows it
      * @return the card represented as a one-hot vector
      */
-    public static double[] getCard(String st) {
-        String s = st.substring(0,1);
-        int c = 0;
-        if(s.equals("A")) {
-            c = 1;
-        } else if(s.equals("2")) {
-            c = 2;
-        } else if(s.equals("3")) {
-            c = 3;
-        } else if(s.equals("4")) {
-            c = 4;
-        } else if(s.equals("5")) {
-            c = 5;
-        } else if(s.equals("6")) {
-            c = 6;
-        } else if(s.equals("7")) {
-            c = 7;
-        } else if(s.equals("8")) {
-            c = 8;
-        } else if(s.equals("9")) {
-            c = 9;
-        } else if(s.equals("T")) {
-            c = 10;
-        } else if(s.equals("J")) {
-            c = 11;
-        } else if(s.equals("Q")) {
-            c = 12;
-        } else if(s.equals("K")) {
-            c = 13;
-        } else {
-            c = -1000;
-        }
-
-        String t = st.substring(1,2);
-        if(t.equals("s")) {
-            c = c;
-        } else if(t.equals("c")) {
-            c += 13;
-        } else if(t.equals("d")) {
-            c += 26;
-        } else if(t.equals("h")) {
-            c += 39;
+    public static double[] getCard(String line, int i) {
+        double[] card = new double[52];
+        int c = Cards.getCard(line, i);
+        if(c == -1) {
+            System.out.println("Malformed card in line:");
+            System.out.println(line);
         } else {
-            c = 0;
+            card[c] = 1;
         }
-        double[] card = new double[52];
-        Arrays.fill(card, 0);
-        card[c-1] = 1;
         return card;
-
     }
 
     /**
@@ -629,17 +765,9 @@ public class Poker2 {
      * @param filename the name of the .csv to export to
      */
     public static void exportToCSV(double[][] array, String filename) {
-        try (FileWriter writer = new FileWriter(filename)) {
+        try (CsvWriter writer = new CsvWriter(filename)) {
             for (double[] row : array) {
-                StringBuilder sb = new StringBuilder();
-                for (int i = 0; i < row.length; i++) {
-                    sb.append(row[i]);
-                    if (i < row.length - 1) {
-                        sb.append(",");
-                    }
-                }
-                writer.write(sb.toString());
-                writer.write(System.lineSeparator());
+                writer.writeRow(row);
             }
         } catch (IOException e) {
             e.printStackTrace();
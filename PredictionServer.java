@@ -0,0 +1,466 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class serves the predictions of a Network over HTTP on this computer, so that several bots can ask for actions
+ * at the same time.
+ *
+ * A bot asks for a prediction with the state of the hand, as a GET query or the body of a POST, e.g.
+ *      http://127.0.0.1:8367/predict?seat=3&players=2&bet=100&hole=KcAh&board=6cQd2sAd
+ *      seat: the bot's seat
+ *      players: the number of players left
+ *      bet: the highest bet
+ *      hole: the two hole cards
+ *      board: the community cards dealt so far, if any
+ * and gets back the chance of folding, checking, calling and raising, e.g.
+ *      0.0009938,0.0002165,0.0699062,0.9288835
+ * The state is encoded into the same 367 inputs as a row of a Dataset (see Poker.java), with the bet as its log base 5.
+ *
+ * Requests that arrive at the same time are predicted together: one thread takes the first request waiting, then
+ * waits up to maxWait microseconds for more until it has maxBatch of them, and predicts them all with one pass through
+ * the network (see Network.predict). A larger batch or longer wait gives more predictions per second when many bots
+ * are playing, at the cost of a longer wait for each one.
+ *
+ * A request that is not predicted within timeout milliseconds gets a 503 response, so that no thread reading requests
+ * waits forever. If the network fails on a batch, every request in it gets a 503 with the error, and if the batching
+ * thread stops (e.g. after stop), every request waiting and every later one gets a 503 straight away.
+ *
+ * http://127.0.0.1:8367/stats returns the number of requests and batches, the mean batch size, and the median (p50) and
+ * 99th percentile (p99) time from a request arriving to its prediction being ready, over the last 10000 requests.
+ */
+public class PredictionServer {
+    private static final int LATENCIES = 10000;
+
+    private final Network network;
+    private final int maxBatch;
+    private final long maxWait;
+    private final long timeout;
+    private final BlockingQueue<Request> queue;
+    private final Request[] pending;
+    private final float[] inputs;
+    private final double[] outputs;
+    private final long[] latencies = new long[LATENCIES];
+    private long requests = 0;
+    private long batches = 0;
+    private HttpServer server;
+    private Thread batcher;
+    private volatile Throwable stopped;
+
+    /**
+     * One request for a prediction, which waits until its batch has been predicted
+     */
+    private static class Request {
+        final double seat;
+        final double playersLeft;
+        final double bet;
+        final byte[] cards;
+        final double[] output;
+        final long arrival = System.nanoTime();
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile Throwable error;
+
+        Request(double seat, double playersLeft, double bet, byte[] cards, int outputs) {
+            this.seat = seat;
+            this.playersLeft = playersLeft;
+            this.bet = bet;
+            this.cards = cards;
+            this.output = new double[outputs];
+        }
+    }
+
+    /**
+     * Constructor for a server of the predictions of a network
+     * @param network the network. It must not be used by anything else while the server runs
+     * @param maxBatch the largest number of requests predicted together
+     * @param maxWait the longest time in microseconds to wait for more requests after the first in a batch
+     * @param timeout the longest time in milliseconds a request waits for its prediction
+     */
+    public PredictionServer(Network network, int maxBatch, long maxWait, long timeout) {
+        this.network = network;
+        this.maxBatch = maxBatch;
+        this.maxWait = TimeUnit.MICROSECONDS.toNanos(maxWait);
+        this.timeout = timeout;
+        this.queue = new ArrayBlockingQueue<>(maxBatch * 64);
+        this.pending = new Request[maxBatch];
+        this.inputs = new float[maxBatch * network.getInputs()];
+        this.outputs = new double[maxBatch * network.getOutputs()];
+    }
+
+    /**
+     * Function to start serving predictions
+     * @param port the port to listen on. Only connections from this computer are accepted
+     * @param threads the number of threads reading requests
+     * @throws IOException if the port cannot be opened
+     */
+    public void start(int port, int threads) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/predict", this::handlePredict);
+        server.createContext("/stats", this::handleStats);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        server.setExecutor(executor);
+        batcher = new Thread(this::batch, "PredictionServer batcher");
+        batcher.setDaemon(true);
+        batcher.start();
+        server.start();
+    }
+
+    /**
+     * Function to stop serving predictions
+     */
+    public void stop() {
+        server.stop(0);
+        ((ExecutorService) server.getExecutor()).shutdown();
+        batcher.interrupt();
+    }
+
+    /**
+     * Function to predict the chance of each action for the state of a hand, waiting for its batch to be predicted
+     * @param seat the seat of the player
+     * @param playersLeft the number of players left
+     * @param bet the highest bet
+     * @param hole the indices of the two hole cards (see Cards.java)
+     * @param board the indices of the community cards dealt so far
+     * @return the chance of folding, checking, calling and raising, or null if it was not predicted within the timeout
+     * @throws InterruptedException if the thread is interrupted while waiting
+     * @throws IOException if the network failed on the batch of the request, or the batching thread has stopped
+     */
+    public double[] predict(double seat, double playersLeft, double bet, byte[] hole, byte[] board) throws InterruptedException, IOException {
+        if(stopped != null) {
+            throw new IOException("The server has stopped predicting", stopped);
+        }
+        byte[] cards = new byte[Dataset.CARDS];
+        Arrays.fill(cards, (byte) -1);
+        System.arraycopy(hole, 0, cards, 0, 2);
+        System.arraycopy(board, 0, cards, 2, Math.min(board.length, 5));
+        Request request = new Request(seat, playersLeft, Math.log(bet) / Math.log(5), cards, network.getOutputs());
+        if(!queue.offer(request, timeout, TimeUnit.MILLISECONDS)) {
+            return null;
+        }
+        // The batching thread sets stopped before it empties the queue for the last time, so a request queued after that
+        // is seen here and taken back rather than left waiting
+        if(stopped != null) {
+            queue.remove(request);
+            throw new IOException("The server has stopped predicting", stopped);
+        }
+        if(!request.done.await(timeout, TimeUnit.MILLISECONDS)) {
+            return null;
+        }
+        if(request.error != null) {
+            throw new IOException("The prediction failed", request.error);
+        }
+        return request.output;
+    }
+
+    /**
+     * Function to return the number of requests and batches, the mean batch size, and the median and 99th percentile
+     * time taken by the last 10000 requests
+     * @return the statistics as JSON
+     */
+    public String getStats() {
+        long[] sorted;
+        long count;
+        long batchCount;
+        synchronized(latencies) {
+            count = requests;
+            batchCount = batches;
+            sorted = Arrays.copyOf(latencies, (int) Math.min(count, LATENCIES));
+        }
+        Arrays.sort(sorted);
+        return String.format(Locale.ROOT, "{\"requests\": %d, \"batches\": %d, \"meanBatch\": %.2f, \"p50Micros\": %.1f, \"p99Micros\": %.1f}",
+                count, batchCount, batchCount == 0 ? 0.0 : (double) count / batchCount,
+                percentile(sorted, 0.50) / 1000.0, percentile(sorted, 0.99) / 1000.0);
+    }
+
+    /**
+     * Helper function run by the batching thread: takes requests from the queue in batches and predicts them. If the
+     * network fails on a batch, its requests are failed and the thread goes on with the next one. When the thread stops,
+     * the requests left are failed so that no one waits for them
+     */
+    private void batch() {
+        try {
+            while(true) {
+                int size = takeBatch();
+                try {
+                    predictBatch(size);
+                } catch (Throwable e) {
+                    e.printStackTrace();
+                    fail(size, e);
+                }
+            }
+        } catch (Throwable e) {
+            stopped = e;
+            fail(maxBatch, e);
+            Request request;
+            while((request = queue.poll()) != null) {
+                request.error = e;
+                request.done.countDown();
+            }
+        }
+    }
+
+    /**
+     * Helper function to take the next batch of requests from the queue into pending
+     * @return the number of requests taken
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    private int takeBatch() throws InterruptedException {
+        pending[0] = queue.take();
+        int size = 1;
+        long deadline = pending[0].arrival + maxWait;
+        while(size < maxBatch) {
+            long wait = deadline - System.nanoTime();
+            Request next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : queue.poll();
+            if(next == null) {
+                break;
+            }
+            pending[size++] = next;
+        }
+        return size;
+    }
+
+    /**
+     * Helper function to predict the requests in pending and let them know
+     * @param size the number of requests in pending
+     */
+    private void predictBatch(int size) {
+        int n = network.getInputs();
+        int m = network.getOutputs();
+        Arrays.fill(inputs, 0, size * n, 0);
+        for(int r = 0; r < size; r++) {
+            Request request = pending[r];
+            int o = r * n;
+            inputs[o] = (float) request.seat;
+            inputs[o + 1] = (float) request.playersLeft;
+            inputs[o + 2] = (float) request.bet;
+            for(int slot = 0; slot < Dataset.CARDS; slot++) {
+                if(request.cards[slot] != -1) {
+                    inputs[o + Dataset.SCALARS + slot * 52 + request.cards[slot]] = 1;
+                }
+            }
+        }
+        network.predict(inputs, size, outputs);
+
+        long now = System.nanoTime();
+        synchronized(latencies) {
+            for(int r = 0; r < size; r++) {
+                latencies[(int) (requests++ % LATENCIES)] = now - pending[r].arrival;
+            }
+            batches++;
+        }
+        for(int r = 0; r < size; r++) {
+            System.arraycopy(outputs, r * m, pending[r].output, 0, m);
+            pending[r].done.countDown();
+            pending[r] = null;
+        }
+    }
+
+    /**
+     * Helper function to fail the requests in pending and let them know
+     * @param size the number of places of pending to look at
+     * @param error the reason they failed
+     */
+    private void fail(int size, Throwable error) {
+        for(int r = 0; r < size; r++) {
+            if(pending[r] != null) {
+                pending[r].error = error;
+                pending[r].done.countDown();
+                pending[r] = null;
+            }
+        }
+    }
+
+    /**
+     * Helper function to answer a request to /predict
+     * @param exchange the request and its response
+     * @throws IOException if the response cannot be sent
+     */
+    private void handlePredict(HttpExchange exchange) throws IOException {
+        String query = exchange.getRequestURI().getRawQuery();
+        if(exchange.getRequestMethod().equals("POST")) {
+            try (InputStream in = exchange.getRequestBody()) {
+                query = new String(in.readAllBytes(), StandardCharsets.UTF_8).trim();
+            }
+        }
+        double seat = -1;
+        double playersLeft = -1;
+        double bet = -1;
+        String hole = null;
+        String board = "";
+        if(query != null) {
+            for(String pair : query.split("&")) {
+                int i = pair.indexOf('=');
+                if(i == -1) {
+                    continue;
+                }
+                String key = pair.substring(0, i);
+                String value = URLDecoder.decode(pair.substring(i + 1), StandardCharsets.UTF_8);
+                try {
+                    if(key.equals("seat")) {
+                        seat = Double.parseDouble(value);
+                    } else if(key.equals("players")) {
+                        playersLeft = Double.parseDouble(value);
+                    } else if(key.equals("bet")) {
+                        bet = Double.parseDouble(value);
+                    } else if(key.equals("hole")) {
+                        hole = value;
+                    } else if(key.equals("board")) {
+                        board = value;
+                    }
+                } catch (NumberFormatException e) {
+                    send(exchange, 400, key + " is not a number: " + value);
+                    return;
+                }
+            }
+        }
+        if(seat < 0 || playersLeft < 0 || bet <= 0 || hole == null) {
+            send(exchange, 400, "A prediction needs seat, players, bet and hole, e.g. /predict?seat=3&players=2&bet=100&hole=KcAh&board=6cQd2sAd");
+            return;
+        }
+        byte[] holeCards = readCards(hole);
+        byte[] boardCards = readCards(board);
+        if(holeCards == null || holeCards.length != 2 || boardCards == null || boardCards.length > 5) {
+            send(exchange, 400, "hole must be two cards and board at most five, e.g. hole=KcAh&board=6cQd2sAd");
+            return;
+        }
+        double[] output;
+        try {
+            output = predict(seat, playersLeft, bet, holeCards, boardCards);
+        } catch (InterruptedException e) {
+            send(exchange, 503, "The server is stopping");
+            return;
+        } catch (IOException e) {
+            send(exchange, 503, e.getMessage() + ": " + e.getCause());
+            return;
+        }
+        if(output == null) {
+            send(exchange, 503, "The prediction took longer than " + timeout + " ms");
+            return;
+        }
+        StringBuilder sb = new StringBuilder();
+        for(int i = 0; i < output.length; i++) {
+            if(i > 0) {
+                sb.append(',');
+            }
+            sb.append(output[i]);
+        }
+        send(exchange, 200, sb.toString());
+    }
+
+    /**
+     * Helper function to answer a request to /stats
+     * @param exchange the request and its response
+     * @throws IOException if the response cannot be sent
+     */
+    private void handleStats(HttpExchange exchange) throws IOException {
+        send(exchange, 200, getStats());
+    }
+
+    /**
+     * Helper function to send a response
+     * @param exchange the request and its response
+     * @param status the HTTP status, e.g. 200
+     * @param body the text of the response, without the final new line
+     * @throws IOException if the response cannot be sent
+     */
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = (body + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Helper function to read cards written one after another, e.g. "6cQd2sAd"
+     * @param text the cards
+     * @return the index of each card, or null if one cannot be read
+     */
+    private static byte[] readCards(String text) {
+        if(text.length() % 2 != 0) {
+            return null;
+        }
+        byte[] cards = new byte[text.length() / 2];
+        for(int i = 0; i < cards.length; i++) {
+            int card = Cards.getCard(text, i * 2);
+            if(card == -1) {
+                return null;
+            }
+            cards[i] = (byte) card;
+        }
+        return cards;
+    }
+
+    /**
+     * Helper function to return a percentile of some sorted numbers
+     * @param sorted the numbers, sorted
+     * @param p the percentile, e.g. 0.99
+     * @return the number at that percentile, or 0 if there are none
+     */
+    private static long percentile(long[] sorted, double p) {
+        if(sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+    }
+
+    public static void main(String [] args) {
+        /*
+         * Starting the server
+         * String weightsFile: the file exported by the notebooks (see Network.java)
+         * int port: the port to listen on
+         * int threads: the number of threads reading requests, at least the number of bots asking at the same time
+         * int maxBatch: the largest number of requests predicted together
+         * long maxWait: the longest time in microseconds to wait for more requests after the first in a batch
+         * long timeout: the longest time in milliseconds a request waits for its prediction before getting a 503
+         * long interval: the number of milliseconds between printing the statistics
+         */
+        String weightsFile = "model_weights.bin";
+        int port = 8367;
+        int threads = 16;
+        int maxBatch = 32;
+        long maxWait = 500;
+        long timeout = 1000;
+        long interval = 10000;
+
+        PredictionServer server;
+        try {
+            server = new PredictionServer(Network.load(weightsFile), maxBatch, maxWait, timeout);
+            server.start(port, threads);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        System.out.println("Serving predictions at http://127.0.0.1:" + port + "/predict");
+
+        String last = "";
+        while(true) {
+            try {
+                Thread.sleep(interval);
+            } catch (InterruptedException e) {
+                server.stop();
+                return;
+            }
+            String stats = server.getStats();
+            if(!stats.equals(last)) {
+                System.out.println(stats);
+                last = stats;
+            }
+        }
+    }
+}
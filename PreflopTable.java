@@ -0,0 +1,279 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This class holds the equity of every starting hand before the flop, against 1 to 5 opponents holding random cards, so
+ * that the equity of a play before the flop can be looked up instead of estimated.
+ *
+ * Before the flop, only the ranks of the hole cards and whether they are the same suit matter, so the 1326 pairs of
+ * cards fall into 169 starting hands: 13 pairs (e.g. "AA"), 78 suited hands ("AKs") and 78 offsuit hands ("AKo"). Each
+ * has a cell in a 13 by 13 grid of ranks: pairs on the diagonal, suited hands with the higher rank first, and offsuit
+ * hands with the lower rank first, so the starting hand of two cards is found with a little arithmetic.
+ *
+ * The table is made once by estimating the equity of each starting hand against each number of opponents with
+ * EquityCalculator on several threads, to within 0.0005 at 95% confidence, and saved as a .csv with a row for each
+ * starting hand and a column for each number of opponents, e.g.
+ *      hand,1,2,3,4,5
+ *      AA,0.8520,0.7347,...
+ * Later runs load the .csv instead (preflop_equity.csv is included).
+ */
+public class PreflopTable {
+    public static final int HANDS = 169;
+    public static final int OPPONENTS = 5;
+
+    private static final String RANKS = "23456789TJQKA";
+
+    private final double[] equities;
+
+    /**
+     * Constructor for a table of equities
+     * @param equities the equity of each starting hand against 1 to 5 opponents, at index hand * OPPONENTS + opponents - 1
+     */
+    public PreflopTable(double[] equities) {
+        this.equities = equities;
+    }
+
+    /**
+     * Function to load the table from a .csv, or to make it and save it to the .csv if the file does not exist
+     * @param file the .csv
+     * @param threads the number of threads to make the table on
+     * @return the table
+     * @throws IOException if the file cannot be read or written
+     */
+    public static PreflopTable load(File file, int threads) throws IOException {
+        if(file.isFile()) {
+            return read(file);
+        }
+        System.out.println("Making the table of equities before the flop. This is only done once");
+        PreflopTable table;
+        try {
+            table = make(threads, 1, 4000000, 0.0005);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while making the table", e);
+        }
+        table.save(file);
+        return table;
+    }
+
+    /**
+     * Function to make the table by estimating every equity with EquityCalculator
+     * @param threads the number of threads
+     * @param seed the seed of the random numbers
+     * @param maxRollouts the most rollouts to deal for each equity
+     * @param tolerance how close to the true equity each estimate must be, at 95% confidence
+     * @return the table
+     * @throws InterruptedException if the thread is interrupted while waiting for the other threads
+     */
+    public static PreflopTable make(int threads, long seed, int maxRollouts, double tolerance) throws InterruptedException {
+        double[] equities = new double[HANDS * OPPONENTS];
+        SplittableRandom root = new SplittableRandom(seed);
+        ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, threads), Metrics.threadFactory());
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for(int hand = 0; hand < HANDS; hand++) {
+                long hole = getCards(hand);
+                for(int opponents = 1; opponents <= OPPONENTS; opponents++) {
+                    int i = hand * OPPONENTS + opponents - 1;
+                    int o = opponents;
+                    SplittableRandom random = root.split();
+                    futures.add(workers.submit(() -> {
+                        equities[i] = EquityCalculator.equity(hole, 0, o, random, maxRollouts, tolerance);
+                    }));
+                }
+            }
+            for(Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+        return new PreflopTable(equities);
+    }
+
+    /**
+     * Function to save the table as a .csv
+     * @param file the .csv
+     * @throws IOException if the file cannot be written
+     */
+    public void save(File file) throws IOException {
+        try (PrintWriter writer = new PrintWriter(new FileWriter(file))) {
+            writer.print("hand");
+            for(int opponents = 1; opponents <= OPPONENTS; opponents++) {
+                writer.print("," + opponents);
+            }
+            writer.println();
+            for(int hand = 0; hand < HANDS; hand++) {
+                writer.print(getName(hand));
+                for(int opponents = 1; opponents <= OPPONENTS; opponents++) {
+                    writer.print(String.format(Locale.ROOT, ",%.4f", equities[hand * OPPONENTS + opponents - 1]));
+                }
+                writer.println();
+            }
+        }
+    }
+
+    /**
+     * Helper function to read the table from a .csv
+     * @param file the .csv
+     * @return the table
+     * @throws IOException if the file cannot be read or is missing a starting hand
+     */
+    private static PreflopTable read(File file) throws IOException {
+        double[] equities = new double[HANDS * OPPONENTS];
+        boolean[] found = new boolean[HANDS];
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            reader.readLine();
+            String line;
+            while((line = reader.readLine()) != null) {
+                String[] cells = line.split(",");
+                if(cells.length != OPPONENTS + 1) {
+                    continue;
+                }
+                int hand = getHand(cells[0]);
+                if(hand == -1) {
+                    throw new IOException("Unknown starting hand " + cells[0] + " in " + file.getName());
+                }
+                try {
+                    for(int opponents = 1; opponents <= OPPONENTS; opponents++) {
+                        equities[hand * OPPONENTS + opponents - 1] = Double.parseDouble(cells[opponents]);
+                    }
+                } catch (NumberFormatException e) {
+                    throw new IOException("Cannot read the equities of " + cells[0] + " in " + file.getName(), e);
+                }
+                found[hand] = true;
+            }
+        }
+        for(int hand = 0; hand < HANDS; hand++) {
+            if(!found[hand]) {
+                throw new IOException(file.getName() + " has no row for " + getName(hand));
+            }
+        }
+        return new PreflopTable(equities);
+    }
+
+    /**
+     * Function to look up the equity of two hole cards before the flop
+     * @param card1 the index of the first card (see Cards.java)
+     * @param card2 the index of the second card
+     * @param opponents the number of opponents. Fewer than 1 counts as 1 and more than 5 as 5
+     * @return the equity
+     */
+    public double getEquity(int card1, int card2, int opponents) {
+        opponents = Math.max(1, Math.min(OPPONENTS, opponents));
+        return equities[getHand(card1, card2) * OPPONENTS + opponents - 1];
+    }
+
+    /**
+     * Function to add the equity before the flop of the player's hole cards in each row as an extra column of a Dataset,
+     * named "preflop", against the players left minus one. Rows without both hole cards get an equity of 0
+     * The column is filled in for every row, including plays after the flop, as the strength of the starting hand
+     * @param data the dataset
+     */
+    public void addColumn(Dataset data) {
+        int column = data.addColumn("preflop");
+        for(int row = 0; row < data.size(); row++) {
+            int card1 = data.getCard(row, 0);
+            int card2 = data.getCard(row, 1);
+            if(card1 != -1 && card2 != -1) {
+                data.setExtra(row, column, getEquity(card1, card2, (int) data.getScalar(row, 1) - 1));
+            }
+        }
+    }
+
+    /**
+     * Function to return the starting hand of two hole cards
+     * @param card1 the index of the first card (see Cards.java)
+     * @param card2 the index of the second card
+     * @return the starting hand, from 0 to 168
+     */
+    public static int getHand(int card1, int card2) {
+        int rank1 = (card1 % 13 + 12) % 13;
+        int rank2 = (card2 % 13 + 12) % 13;
+        int high = Math.max(rank1, rank2);
+        int low = Math.min(rank1, rank2);
+        if(card1 / 13 == card2 / 13) {
+            return high * 13 + low;
+        }
+        return low * 13 + high;
+    }
+
+    /**
+     * Function to return the starting hand with a name
+     * @param name the name, e.g. "AA", "AKs" or "AKo"
+     * @return the starting hand, or -1 if the name is not a starting hand
+     */
+    public static int getHand(String name) {
+        for(int hand = 0; hand < HANDS; hand++) {
+            if(getName(hand).equals(name)) {
+                return hand;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Function to return the name of a starting hand
+     * @param hand the starting hand, from 0 to 168
+     * @return the name, e.g. "AA", "AKs" or "AKo"
+     */
+    public static String getName(int hand) {
+        int row = hand / 13;
+        int column = hand % 13;
+        if(row == column) {
+            return "" + RANKS.charAt(row) + RANKS.charAt(row);
+        } else if(row > column) {
+            return "" + RANKS.charAt(row) + RANKS.charAt(column) + "s";
+        }
+        return "" + RANKS.charAt(column) + RANKS.charAt(row) + "o";
+    }
+
+    /**
+     * Helper function to return two hole cards of a starting hand, as used to estimate its equity
+     * @param hand the starting hand, from 0 to 168
+     * @return the cards, with the bit (1L << card) set for each card (see HandEvaluator.java)
+     */
+    private static long getCards(int hand) {
+        int row = hand / 13;
+        int column = hand % 13;
+        int rank1 = (row + 1) % 13;
+        int rank2 = (column + 1) % 13;
+        if(row > column) {
+            return 1L << rank1 | 1L << rank2;
+        }
+        return 1L << rank1 | 1L << (13 + rank2);
+    }
+
+    public static void main(String [] args) {
+        /*
+         * Making the table again and saving it, e.g. to check preflop_equity.csv
+         * String filename: the name of the .csv to save the table to
+         * int threads: the number of threads to make the table on
+         */
+        String filename = "preflop_equity.csv";
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        long start = System.nanoTime();
+        try {
+            make(threads, 1, 4000000, 0.0005).save(new File(filename));
+        } catch (IOException | InterruptedException e) {
+            e.printStackTrace();
+            return;
+        }
+        System.out.println("Made " + filename + " in " + (System.nanoTime() - start) / 1000000 + " ms");
+    }
+}
@@ -0,0 +1,268 @@
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Scanner;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The functions of Poker.java as they were before any of the changes, copied here unchanged so that the benchmarks can
+ * compare the stages that replaced them with the original code. Poker.java itself has changed since (e.g. getCard now
+ * looks the card up in a table), so it cannot be used as the baseline.
+ */
+public class BaselinePoker {
+
+    /**
+     * Function to return the number of plays in the data
+     * @param scanner a scanner to sift through the data
+     * @return an integer with the number of plays in the data
+     */
+    public static int getPlays(Scanner scanner) {
+        int c = 0;
+        while (scanner.hasNextLine()) {
+            String line = scanner.nextLine();
+            if(line.indexOf("Pluribus: ") != -1 && line.indexOf("blind") == -1 && line.indexOf("shows") == -1) {
+                c++;
+            }
+        }
+        return c;
+    }
+
+    /**
+     * Function to get the hole cards held by Pluribus
+     * @param scanner1 a scanner to sift through the data
+     * @param plays the number of plays in the data
+     * @return a 2-D array where each row represents the hole cards in one play encoded as two one-hot vectors
+     */
+    public static double[][] getHands(Scanner scanner1, int plays) {
+        double[][] hands = new double[plays][];
+        int i = 0;
+        while(i<plays) {
+            double[] h = getHand(scanner1);            
+            while(true) {
+                String line = scanner1.nextLine();
+                if(line.indexOf("SUMMARY") != -1) {
+                    break;
+                }
+                if(line.indexOf("Pluribus: ") != -1 && line.indexOf("blind") == -1 && line.indexOf("shows") == -1){
+                    hands[i] = h;
+                    i++;
+                }
+            }
+        }
+
+        return hands;
+    }
+
+
+    /**
+     * Function to return one set of whole cards held by Pluribus
+     * @param scanner1 scanner to sift through the data. Same scanner as getHands to ensure same position
+     * @return a one-hot vector encoding the two cards held
+     */
+    public static double[] getHand(Scanner scanner1) {
+        double [] hand = new double[104];
+        while (scanner1.hasNextLine()) {
+            String line = scanner1.nextLine();
+            if(line.indexOf("Dealt to Pluribus") != -1) {
+                int i = line.indexOf("Dealt to Pluribus");
+                String s = line.substring(i + 19, i + 21);
+                double[] c1 = getCard(s);
+                s = line.substring(i + 22, i + 24);
+                double[] c2 = getCard(s);
+                for(int j = 0; j < 52; j++) {
+                    hand[j] = c1[j];
+                }
+                for(int j = 52; j < 104; j++) {
+                    hand[j] = c2[j-52];
+                }
+                break;
+            }
+        }
+        return hand;
+    }
+
+    /**
+     * Function to get the community cards at each action
+     * @param scanner2 a scanner to sift through the data
+     * @param plays the number of plays in the data
+     * @return a 2-D array where each row represents the community cards in that play encoded as one-hot vectors
+     */
+    public static double[][] getTables(Scanner scanner2, int plays) {
+        double[][] tables = new double [plays][260];
+        int i = 0;
+        double[] table = new double[260];
+        while(i < 260 && scanner2.hasNextLine()) {
+            String line = scanner2.nextLine();
+            if(line.indexOf("FLOP") != -1) {
+                int index = line.indexOf("FLOP");
+                String s = line.substring(index + 10, index + 12);
+                double [] c1 = getCard(s);
+                s = line.substring(index + 13, index + 15);
+                double [] c2 = getCard(s);
+                s = line.substring(index + 16, index + 18);
+                double [] c3 = getCard(s);
+                for(int j = 0; j < 52; j++) {
+                    table[j] = c1[j];
+                }
+                for(int j = 52; j < 104; j++) {
+                    table[j] = c2[j-52];
+                }
+                for(int j = 104; j < 156; j++) {
+                    table[j] = c3[j-104];
+                }
+            } else if(line.indexOf("TURN") != -1) {
+                int index = line.indexOf("TURN");
+                String s = line.substring(index + 21, index + 23);
+                double [] c4 = getCard(s);
+                for(int j = 156; j < 208; j++) {
+                    table[j] = c4[j-156];
+                }
+            } else if(line.indexOf("RIVER") != -1) {
+                int index = line.indexOf("RIVER");
+                String s = line.substring(index + 27, index + 29);
+                double [] c5 = getCard(s);
+                for(int j = 208; j < 260; j++) {
+                    table[j] = c5[j-208];
+                }
+            } else if(line.indexOf("Pluribus: ") != -1 && line.indexOf("blind") == -1  && line.indexOf("shows") == -1){
+                for(int j = 0; j < 260; j++) {
+                    tables[i][j] = table[j];
+                }
+                i++;
+                
+            } else if(line.indexOf("PokerStars") != -1) {
+                Arrays.fill(table, 0);
+            }
+        }
+        return tables;
+    }
+    
+    /**
+     * Function to return the log base 5 of the highest bet at each play
+     * @param scanner3 a scanner to sift through the data
+     * @param plays the number of plays in the data
+     * @return the log base 5 of the highest bet in each play
+     */
+    public static double[] getBets(Scanner scanner3, int plays) {
+        double[] bets = new double[plays];
+        double bet = 0;
+        int i = 0;
+        while(scanner3.hasNextLine()) {
+            String line = scanner3.nextLine();
+            if(line.indexOf("posts big") != -1) {
+                bet = 100;
+            }
+            if((line.indexOf("raises") != -1 || line.indexOf("bets") != -1 ) && line.indexOf("Pluribus") == -1) {
+                Pattern pattern = Pattern.compile("\\d+$");
+                Matcher matcher = pattern.matcher(line);
+                if (matcher.find()) {
+                    // Get the matched number as a string
+                    String numberAsString = matcher.group();
+        
+                    // Convert the string number to an integer
+                    int number = Integer.parseInt(numberAsString);
+        
+                    // Print the extracted number
+                    if( (double) number >= bet) {
+                        bet = (double) number;
+                    }
+                } else if(line.indexOf("all-in") != -1) {
+                    bet = 10000;
+                } else {
+                    System.out.println("No number found at the end of the string.");
+                    System.out.println(line);
+                }
+            }
+            if(line.indexOf("Pluribus: ") != -1 && line.indexOf("blind") == -1  && line.indexOf("shows") == -1){
+                bets[i] = Math.log(bet) / Math.log(5);
+                i++;
+            }
+
+        }
+        return bets;
+    }
+
+
+    /**
+     * Helper function to encode a card as a one-hot vector given its string format
+     * @param st the card represented as a string
+     * @return the card represented as a one-hot vector
+     */
+    public static double[] getCard(String st) {
+        String s = st.substring(0,1);
+        int c = 0;
+        if(s.equals("A")) {
+            c = 1;
+        } else if(s.equals("2")) {
+            c = 2;
+        } else if(s.equals("3")) {
+            c = 3;
+        } else if(s.equals("4")) {
+            c = 4;
+        } else if(s.equals("5")) {
+            c = 5;
+        } else if(s.equals("6")) {
+            c = 6;
+        } else if(s.equals("7")) {
+            c = 7;
+        } else if(s.equals("8")) {
+            c = 8;
+        } else if(s.equals("9")) {
+            c = 9;
+        } else if(s.equals("T")) {
+            c = 10;
+        } else if(s.equals("J")) {
+            c = 11;
+        } else if(s.equals("Q")) {
+            c = 12;
+        } else if(s.equals("K")) {
+            c = 13;
+        } else {
+            c = -1000;
+        }
+
+        String t = st.substring(1,2);
+        if(t.equals("s")) {
+            c = c;
+        } else if(t.equals("c")) {
+            c += 13;
+        } else if(t.equals("d")) {
+            c += 26;
+        } else if(t.equals("h")) {
+            c += 39;
+        } else {
+            c = 0;
+        }
+        double[] card = new double[52];
+        Arrays.fill(card, 0);
+        card[c-1] = 1;
+        return card;
+
+    }
+
+    /**
+     * Function to export an array as a .csv
+     * Courtesy of ChatGPT :)
+     * @param array the array to convert to a .csv
+     * @param filename the name of the .csv to export to
+     */
+    public static void exportToCSV(double[][] array, String filename) {
+        try (FileWriter writer = new FileWriter(filename)) {
+            for (double[] row : array) {
+                StringBuilder sb = new StringBuilder();
+                for (int i = 0; i < row.length; i++) {
+                    sb.append(row[i]);
+                    if (i < row.length - 1) {
+                        sb.append(",");
+                    }
+                }
+                writer.write(sb.toString());
+                writer.write(System.lineSeparator());
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+}
\ No newline at end of file
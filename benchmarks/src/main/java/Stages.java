@@ -0,0 +1,134 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.ForkJoinPool;
+
+import poker.jmh.Pipeline;
+
+/**
+ * The stages measured by PipelineBenchmark, which calls them through the Pipeline interface because it cannot refer to
+ * the classes in the default package itself (see Pipeline.java).
+ *
+ * The new stages record the actions of every player, finding the players from the Seat lines (players = null), as
+ * Poker2.java does. The baseline stages only record Pluribus, as the functions in BaselinePoker do.
+ */
+public class Stages implements Pipeline {
+    private File data;
+    private Dataset dataset;
+    private List<Hand> hands;
+    private List<String> dealt;
+    private int plays;
+    private double[][] inputs;
+    private String in;
+    private String out;
+
+    @Override
+    public int load(File data, File dir) throws Exception {
+        this.data = data;
+        dataset = new Dataset();
+        HandReader.parse(data, null, dataset);
+        hands = HandBuilder.parse(data);
+        dealt = new ArrayList<>();
+        for(String line : Files.readAllLines(data.toPath())) {
+            if(line.startsWith("Dealt to ")) {
+                dealt.add(line);
+            }
+        }
+        try (Scanner scanner = new Scanner(data)) {
+            plays = BaselinePoker.getPlays(scanner);
+        }
+        inputs = dataset.getInputs();
+        in = new File(dir, "in.csv").getPath();
+        out = new File(dir, "out.csv").getPath();
+        return hands.size();
+    }
+
+    @Override
+    public long encodeCards() {
+        long n = 0;
+        for(String line : dealt) {
+            int i = line.indexOf('[');
+            n += Cards.getCard(line, i + 1) + Cards.getCard(line, i + 4);
+        }
+        return n;
+    }
+
+    @Override
+    public long handParserScanner() throws IOException {
+        try (Scanner scanner = new Scanner(data)) {
+            return HandParser.parse(scanner, null, new Dataset());
+        }
+    }
+
+    @Override
+    public long handReader() throws IOException {
+        return HandReader.parse(data, null, new Dataset());
+    }
+
+    @Override
+    public long parallelParser() throws IOException {
+        return new ParallelParser(data, null, ForkJoinPool.commonPool(), false).parse().size();
+    }
+
+    @Override
+    public long handBuilder() throws IOException {
+        return HandBuilder.parse(data).size();
+    }
+
+    @Override
+    public long handParserHands() {
+        return HandParser.parse(hands, null, new Dataset());
+    }
+
+    @Override
+    public long exportToCSV() {
+        dataset.exportToCSV(in, out);
+        return new File(in).length();
+    }
+
+    @Override
+    public long exportToNPY() throws IOException {
+        NpyWriter.exportToNPY(dataset, in, out);
+        return new File(in).length();
+    }
+
+    @Override
+    public long baselineGetCard() {
+        long n = 0;
+        for(String line : dealt) {
+            int i = line.indexOf('[');
+            n += BaselinePoker.getCard(line.substring(i + 1, i + 3)).length + BaselinePoker.getCard(line.substring(i + 4, i + 6)).length;
+        }
+        return n;
+    }
+
+    @Override
+    public long baselineGetHands() throws IOException {
+        try (Scanner scanner = new Scanner(data)) {
+            return BaselinePoker.getHands(scanner, plays).length;
+        }
+    }
+
+    @Override
+    public long baselineGetTables() throws IOException {
+        try (Scanner scanner = new Scanner(data)) {
+            return BaselinePoker.getTables(scanner, plays).length;
+        }
+    }
+
+    @Override
+    public long baselineGetBets() throws IOException {
+        try (Scanner scanner = new Scanner(data)) {
+            return BaselinePoker.getBets(scanner, plays).length;
+        }
+    }
+
+    @Override
+    public long baselineExportToCSV() {
+        BaselinePoker.exportToCSV(inputs, in);
+        return new File(in).length();
+    }
+}
@@ -0,0 +1,127 @@
+package poker.jmh;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * This class compares the results of a run of the benchmarks with the results of an earlier run, so that a script can
+ * fail when a stage becomes slower.
+ *
+ * Both files are the .csv that JMH writes with -rf csv. Each row is matched with the row of the same benchmark,
+ * secondary result (e.g. "handReader:hands" or "handReader:gc.alloc.rate.norm") and parameters in the baseline:
+ *      A result per second (operations or hands) is a regression if it is lower than the baseline by more than the tolerance
+ *      The bytes allocated per operation (B/op) are a regression if they are higher than the baseline by more than the
+ *          tolerance
+ * Other rows, e.g. the counts of garbage collections, are not compared.
+ *
+ * Usage: java poker.jmh.CompareResults results.csv baseline.csv 0.2
+ * The program exits with status 1 if there is any regression.
+ */
+public class CompareResults {
+    public static void main(String [] args) {
+        if(args.length < 2) {
+            System.out.println("Usage: java poker.jmh.CompareResults results.csv baseline.csv [tolerance]");
+            System.exit(2);
+        }
+        double tolerance = args.length > 2 ? Double.parseDouble(args[2]) : 0.2;
+        Map<String, String[]> results;
+        Map<String, String[]> baseline;
+        try {
+            results = read(Paths.get(args[0]));
+            if(!Files.isRegularFile(Paths.get(args[1]))) {
+                System.out.println("There is no baseline at " + args[1] + ". Copy " + args[0] + " there to make one");
+                return;
+            }
+            baseline = read(Paths.get(args[1]));
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(2);
+            return;
+        }
+
+        int regressions = 0;
+        for(Map.Entry<String, String[]> entry : results.entrySet()) {
+            String[] before = baseline.get(entry.getKey());
+            if(before == null) {
+                continue;
+            }
+            String unit = entry.getValue()[1];
+            double now = Double.parseDouble(entry.getValue()[0].replace(',', '.'));
+            double then = Double.parseDouble(before[0].replace(',', '.'));
+            if(unit.endsWith("/s") && now < then * (1 - tolerance)) {
+                System.out.println(String.format(Locale.ROOT, "REGRESSION %s: %.1f %s, down from %.1f", entry.getKey(), now, unit, then));
+                regressions++;
+            } else if(unit.equals("B/op") && now > then * (1 + tolerance)) {
+                System.out.println(String.format(Locale.ROOT, "REGRESSION %s: %.1f %s, up from %.1f", entry.getKey(), now, unit, then));
+                regressions++;
+            }
+        }
+        System.out.println(regressions == 0 ? "No benchmark is worse than " + args[1] : regressions + " results are worse than " + args[1]);
+        if(regressions > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Helper function to read the score and unit of every row of a .csv written by JMH
+     * @param file the .csv
+     * @return the score and unit of each row, keyed by the benchmark and its parameters
+     * @throws IOException if the file cannot be read or is not a .csv written by JMH
+     */
+    private static Map<String, String[]> read(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file);
+        if(lines.isEmpty()) {
+            throw new IOException(file + " is empty");
+        }
+        List<String> header = split(lines.get(0));
+        int score = header.indexOf("Score");
+        int unit = header.indexOf("Unit");
+        if(score == -1 || unit == -1) {
+            throw new IOException(file + " is not a .csv written by JMH");
+        }
+        Map<String, String[]> rows = new LinkedHashMap<>();
+        for(String line : lines.subList(1, lines.size())) {
+            List<String> cells = split(line);
+            if(cells.size() != header.size()) {
+                continue;
+            }
+            StringBuilder key = new StringBuilder(cells.get(0));
+            for(int i = unit + 1; i < cells.size(); i++) {
+                key.append(' ').append(header.get(i).replace("Param: ", "")).append('=').append(cells.get(i));
+            }
+            rows.put(key.toString(), new String[] {cells.get(score), cells.get(unit)});
+        }
+        return rows;
+    }
+
+    /**
+     * Helper function to split a line of a .csv into its cells, removing the quotes around them
+     * @param line the line
+     * @return the cells
+     */
+    private static List<String> split(String line) {
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        for(int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if(c == '"') {
+                quoted = !quoted;
+            } else if(c == ',' && !quoted) {
+                cells.add(cell.toString());
+                cell.setLength(0);
+            } else {
+                cell.append(c);
+            }
+        }
+        cells.add(cell.toString());
+        return cells;
+    }
+}
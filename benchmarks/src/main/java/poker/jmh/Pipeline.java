@@ -0,0 +1,111 @@
+package poker.jmh;
+
+import java.io.File;
+
+/**
+ * The stages of turning hand histories into a dataset that PipelineBenchmark measures.
+ *
+ * The classes of the pipeline (HandParser, HandReader, Dataset, ...) are in the default package, which a class in a
+ * package cannot refer to, and JMH does not allow benchmarks in the default package. So the benchmarks call the stages
+ * through this interface, which is implemented by Stages in the default package. The call through the interface is
+ * inlined by the JIT, so it does not change the results.
+ *
+ * Each stage returns a number computed from its result, which the benchmark returns so that JMH consumes it and the
+ * JVM cannot skip the work.
+ */
+public interface Pipeline {
+    /**
+     * Function to read a hand history file once and keep what the stages need, e.g. the rows to export
+     * @param data the hand history file
+     * @param dir a folder for the files the export stages write
+     * @return the number of hands in the file
+     * @throws Exception if the file cannot be read
+     */
+    int load(File data, File dir) throws Exception;
+
+    /**
+     * Function to encode the hole cards of every "Dealt to" line with Cards.getCard
+     * @return the sum of the indices of the cards
+     */
+    long encodeCards();
+
+    /**
+     * Function to read every line of the file with a Scanner into a HandParser
+     * @return the number of rows
+     * @throws Exception if the file cannot be read
+     */
+    long handParserScanner() throws Exception;
+
+    /**
+     * Function to read the memory-mapped file with HandReader
+     * @return the number of rows
+     * @throws Exception if the file cannot be read
+     */
+    long handReader() throws Exception;
+
+    /**
+     * Function to read the memory-mapped file with ParallelParser on the common ForkJoinPool
+     * @return the number of rows
+     * @throws Exception if the file cannot be read
+     */
+    long parallelParser() throws Exception;
+
+    /**
+     * Function to read the file into Hands with HandBuilder, as HandCache does the first time
+     * @return the number of hands
+     * @throws Exception if the file cannot be read
+     */
+    long handBuilder() throws Exception;
+
+    /**
+     * Function to fill a Dataset from the Hands read by load, as after HandCache loads them
+     * @return the number of rows
+     */
+    long handParserHands();
+
+    /**
+     * Function to export the rows with Dataset.exportToCSV
+     * @return the size of the file of inputs
+     */
+    long exportToCSV();
+
+    /**
+     * Function to export the rows with NpyWriter.exportToNPY
+     * @return the size of the file of inputs
+     * @throws Exception if the files cannot be written
+     */
+    long exportToNPY() throws Exception;
+
+    /**
+     * Function to encode the hole cards of every "Dealt to" line with getCard as it was before any of the changes
+     * @return the number of numbers in the one-hot vectors
+     */
+    long baselineGetCard();
+
+    /**
+     * Function to read the hole cards of every play with getHands as it was before any of the changes
+     * @return the number of rows
+     * @throws Exception if the file cannot be read
+     */
+    long baselineGetHands() throws Exception;
+
+    /**
+     * Function to read the community cards of every play with getTables as it was before any of the changes
+     * @return the number of rows
+     * @throws Exception if the file cannot be read
+     */
+    long baselineGetTables() throws Exception;
+
+    /**
+     * Function to read the highest bet of every play with getBets as it was before any of the changes
+     * @return the number of rows
+     * @throws Exception if the file cannot be read
+     */
+    long baselineGetBets() throws Exception;
+
+    /**
+     * Function to export the rows of inputs with exportToCSV as it was before any of the changes
+     * @return the size of the file
+     */
+    long baselineExportToCSV();
+}
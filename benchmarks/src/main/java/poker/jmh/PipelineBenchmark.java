@@ -0,0 +1,190 @@
+package poker.jmh;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of each stage of turning hand histories into a dataset, so that a change that makes a stage slower is
+ * noticed before it reaches a long extraction run.
+ *
+ * Each stage is measured on the hand history file (copies = 1) and on a larger file made by repeating it (copies = 100).
+ * JMH runs each benchmark in its own forked JVM, warms it up before measuring, and consumes the number each stage
+ * returns, so the JVM cannot skip the work. The results have:
+ *      The operations per second, where one operation is one run of the stage over the whole file
+ *      The hands per second, as the "hands" counter (see Hands)
+ *      The bytes allocated per operation, as gc.alloc.rate.norm, when run with the gc profiler (-prof gc), as
+ *          gradle :benchmarks:jmh does
+ *
+ * The baseline benchmarks run getCard, getHands, getTables, getBets and exportToCSV as they were in Poker.java before
+ * any of the changes (see BaselinePoker.java), so the stages that replaced them can be compared with the original code.
+ *
+ * Run from the folder with the data, as gradle :benchmarks:jmh does, or pass the path of the file with -p file=...
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class PipelineBenchmark {
+    @Param({"pluribus_118.txt"})
+    public String file;
+
+    @Param({"1", "100"})
+    public int copies;
+
+    private Pipeline pipeline;
+    private File dir;
+    private int hands;
+    private PrintStream stdout;
+
+    /**
+     * Counter of the hands read by each benchmark, which JMH reports per second next to the operations per second
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Hands {
+        public long hands;
+
+        /**
+         * Function to clear the counter before each iteration
+         */
+        @Setup(Level.Iteration)
+        public void clear() {
+            hands = 0;
+        }
+    }
+
+    /**
+     * Function to write the larger file and read the data once before the benchmarks of a trial
+     * @throws Exception if the data cannot be read or written
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        File source = new File(file);
+        dir = Files.createTempDirectory("benchmark").toFile();
+        File data = source;
+        if(copies > 1) {
+            data = new File(dir, "corpus.txt");
+            byte[] bytes = Files.readAllBytes(source.toPath());
+            try (OutputStream out = new FileOutputStream(data)) {
+                for(int i = 0; i < copies; i++) {
+                    out.write(bytes);
+                }
+            }
+        }
+        pipeline = (Pipeline) Class.forName("Stages").getDeclaredConstructor().newInstance();
+        hands = pipeline.load(data, dir);
+        stdout = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    /**
+     * Function to delete the files written by the trial
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(stdout);
+        for(File f : dir.listFiles()) {
+            f.delete();
+        }
+        dir.delete();
+    }
+
+    @Benchmark
+    public long encodeCards(Hands counter) {
+        counter.hands += hands;
+        return pipeline.encodeCards();
+    }
+
+    @Benchmark
+    public long handParserScanner(Hands counter) throws Exception {
+        counter.hands += hands;
+        return pipeline.handParserScanner();
+    }
+
+    @Benchmark
+    public long handReader(Hands counter) throws Exception {
+        counter.hands += hands;
+        return pipeline.handReader();
+    }
+
+    @Benchmark
+    public long parallelParser(Hands counter) throws Exception {
+        counter.hands += hands;
+        return pipeline.parallelParser();
+    }
+
+    @Benchmark
+    public long handBuilder(Hands counter) throws Exception {
+        counter.hands += hands;
+        return pipeline.handBuilder();
+    }
+
+    @Benchmark
+    public long handParserHands(Hands counter) {
+        counter.hands += hands;
+        return pipeline.handParserHands();
+    }
+
+    @Benchmark
+    public long exportToCSV(Hands counter) {
+        counter.hands += hands;
+        return pipeline.exportToCSV();
+    }
+
+    @Benchmark
+    public long exportToNPY(Hands counter) throws Exception {
+        counter.hands += hands;
+        return pipeline.exportToNPY();
+    }
+
+    @Benchmark
+    public long baselineGetCard(Hands counter) {
+        counter.hands += hands;
+        return pipeline.baselineGetCard();
+    }
+
+    @Benchmark
+    public long baselineGetHands(Hands counter) throws Exception {
+        counter.hands += hands;
+        return pipeline.baselineGetHands();
+    }
+
+    @Benchmark
+    public long baselineGetTables(Hands counter) throws Exception {
+        counter.hands += hands;
+        return pipeline.baselineGetTables();
+    }
+
+    @Benchmark
+    public long baselineGetBets(Hands counter) throws Exception {
+        counter.hands += hands;
+        return pipeline.baselineGetBets();
+    }
+
+    @Benchmark
+    public long baselineExportToCSV(Hands counter) {
+        counter.hands += hands;
+        return pipeline.baselineExportToCSV();
+    }
+}
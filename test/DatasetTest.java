@@ -0,0 +1,23 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of the limit on the number of rows of a Dataset
+ */
+public class DatasetTest {
+    @Test
+    public void limitsRowsByTheWidestArray() {
+        assertEquals((Integer.MAX_VALUE - 8) / Dataset.CARDS, Dataset.MAX_ROWS);
+        assertTrue((long) Dataset.MAX_ROWS * Dataset.CARDS <= Integer.MAX_VALUE - 8);
+        assertTrue((long) Dataset.MAX_ROWS * Dataset.SCALARS <= Integer.MAX_VALUE - 8);
+    }
+
+    @Test
+    public void rejectsCapacityAboveTheLimit() {
+        assertThrows(OutOfMemoryError.class, () -> new Dataset(Dataset.MAX_ROWS + 1));
+        assertThrows(OutOfMemoryError.class, () -> new Dataset((Integer.MAX_VALUE - 8) / Dataset.SCALARS));
+    }
+}
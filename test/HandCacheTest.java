@@ -0,0 +1,133 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests of HandBuilder and HandCache on hands from a 10-max table, where the last seat is "Seat 10:"
+ */
+public class HandCacheTest {
+    private static final String[] PLAYERS = {"Ten", "One"};
+
+    @Test
+    public void keepsSeatTenThroughTheCache(@TempDir Path dir) throws IOException {
+        File file = dir.resolve("ten_max.txt").toFile();
+        Files.write(file.toPath(), HandParserTest.TEN_MAX_HAND.getBytes(StandardCharsets.UTF_8));
+
+        List<Hand> built = HandCache.load(file);
+        assertEquals(1, built.size());
+        assertEquals("Ten", built.get(0).getName(10));
+        assertEquals(8000, built.get(0).getStack(10));
+        assertEquals(9, built.get(0).getButton());
+
+        List<Hand> cached = HandCache.load(file);
+        assertEquals("Ten", cached.get(0).getName(10));
+        Dataset data = new Dataset();
+        HandParser.addColumns(data);
+        HandParser.parse(cached, PLAYERS, data);
+        HandParserTest.checkRows(data);
+    }
+
+    @Test
+    public void skipsSeatOutOfRange(@TempDir Path dir) throws IOException {
+        File file = dir.resolve("eleven.txt").toFile();
+        String hand = HandParserTest.TEN_MAX_HAND.replace("Seat 10: Ten (8000 in chips)", "Seat 11: Ten (8000 in chips)");
+        Files.write(file.toPath(), hand.getBytes(StandardCharsets.UTF_8));
+        List<Hand> hands = HandCache.load(file);
+        assertNull(hands.get(0).getName(10));
+        Dataset data = new Dataset();
+        HandParser.parse(hands, PLAYERS, data);
+        assertEquals(2, data.size());
+    }
+
+    @Test
+    public void rejectsCacheWithSeatOutOfRange(@TempDir Path dir) throws IOException {
+        File file = dir.resolve("ten_max.txt").toFile();
+        Files.write(file.toPath(), HandParserTest.TEN_MAX_HAND.getBytes(StandardCharsets.UTF_8));
+        List<Hand> hands = HandCache.load(file);
+        File cache = HandCache.getCacheFile(file);
+        byte[] bytes = Files.readAllBytes(cache.toPath());
+        // The last action, "One: folds", ends the file: its seat, its verb and street, and its amount and total of -1
+        int last = bytes.length - 4;
+        assertEquals(1, bytes[last]);
+        try (RandomAccessFile raf = new RandomAccessFile(cache, "rw")) {
+            raf.seek(last);
+            raf.writeByte(12);
+        }
+        assertNull(HandCache.read(cache, file.length(), file.lastModified(), file));
+        assertEquals(hands.size(), HandCache.load(file).size());
+    }
+
+    @Test
+    public void rejectsCacheWithCountOutOfRange(@TempDir Path dir) throws IOException {
+        File file = dir.resolve("ten_max.txt").toFile();
+        Files.write(file.toPath(), HandParserTest.TEN_MAX_HAND.getBytes(StandardCharsets.UTF_8));
+        List<Hand> hands = HandCache.load(file);
+        File cache = HandCache.getCacheFile(file);
+        // The count of names follows the magic number, the version, the size, the time and the checksum
+        try (RandomAccessFile raf = new RandomAccessFile(cache, "rw")) {
+            raf.seek(32);
+            raf.write(new byte[] {(byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x07});
+        }
+        assertNull(HandCache.read(cache, file.length(), file.lastModified(), file));
+        assertEquals(hands.size(), HandCache.load(file).size());
+    }
+
+    @Test
+    public void rejectsCacheWithNameOutOfRange(@TempDir Path dir) throws IOException {
+        File file = dir.resolve("ten_max.txt").toFile();
+        Files.write(file.toPath(), HandParserTest.TEN_MAX_HAND.getBytes(StandardCharsets.UTF_8));
+        List<Hand> hands = HandCache.load(file);
+        File cache = HandCache.getCacheFile(file);
+        byte[] bytes = Files.readAllBytes(cache.toPath());
+        // Skip the header, the table of names, the count of hands, and the number, blinds, button and seats of the hand,
+        // to reach the index of the name in seat 1
+        ByteArrayInputStream in = new ByteArrayInputStream(bytes);
+        DataInputStream data = new DataInputStream(in);
+        data.skipBytes(32);
+        long names = readVarLong(data);
+        for(int i = 0; i < names; i++) {
+            data.readUTF();
+        }
+        for(int i = 0; i < 6; i++) {
+            readVarLong(data);
+        }
+        int index = bytes.length - in.available();
+        assertTrue(bytes[index] < names);
+        try (RandomAccessFile raf = new RandomAccessFile(cache, "rw")) {
+            raf.seek(index);
+            raf.writeByte((int) names);
+        }
+        assertNull(HandCache.read(cache, file.length(), file.lastModified(), file));
+        assertEquals(hands.size(), HandCache.load(file).size());
+    }
+
+    /**
+     * Helper function to read a number written in 7 bits per byte, as HandCache writes them
+     * @param in the stream to read from
+     * @return the number
+     * @throws IOException if the stream cannot be read
+     */
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long n = 0;
+        for(int shift = 0; ; shift += 7) {
+            int b = in.readUnsignedByte();
+            n |= (long) (b & 0x7f) << shift;
+            if((b & 0x80) == 0) {
+                return n;
+            }
+        }
+    }
+}
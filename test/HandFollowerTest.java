@@ -0,0 +1,112 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests that HandFollower adds each row once, even if the program stopped between adding rows and saving the checkpoint
+ */
+public class HandFollowerTest {
+    private static final String[] PLAYERS = {"Ten", "One"};
+
+    @Test
+    public void addsNewHandsToTheEnd(@TempDir Path dir) throws IOException {
+        File file = dir.resolve("hands.txt").toFile();
+        Files.write(file.toPath(), HandParserTest.TEN_MAX_HAND.getBytes(StandardCharsets.UTF_8));
+        HandFollower follower = newFollower(file, dir);
+        assertEquals(4, follower.update());
+        appendHand(file, 200002);
+        assertEquals(4, follower.update());
+        assertEquals(0, follower.update());
+        assertEquals(200002, follower.getHand());
+        assertEquals(8, countLines(dir.resolve("in.csv")));
+        assertEquals(8, countLines(dir.resolve("out.csv")));
+    }
+
+    @Test
+    public void removesRowsAddedAfterTheCheckpoint(@TempDir Path dir) throws IOException {
+        File file = dir.resolve("hands.txt").toFile();
+        Files.write(file.toPath(), HandParserTest.TEN_MAX_HAND.getBytes(StandardCharsets.UTF_8));
+        HandFollower follower = newFollower(file, dir);
+        follower.update();
+        Path checkpoint = dir.resolve("in.csv.checkpoint");
+        byte[] saved = Files.readAllBytes(checkpoint);
+
+        // The rows of the new hand are added, then the program stops before the checkpoint is saved
+        appendHand(file, 200002);
+        follower.update();
+        Files.write(checkpoint, saved);
+
+        assertEquals(4, newFollower(file, dir).update());
+        assertEquals(8, countLines(dir.resolve("in.csv")));
+        assertEquals(8, countLines(dir.resolve("out.csv")));
+    }
+
+    @Test
+    public void readsEverythingAgainWhenTheCsvIsCutShort(@TempDir Path dir) throws IOException {
+        File file = dir.resolve("hands.txt").toFile();
+        Files.write(file.toPath(), HandParserTest.TEN_MAX_HAND.getBytes(StandardCharsets.UTF_8));
+        appendHand(file, 200002);
+        newFollower(file, dir).update();
+        Files.write(dir.resolve("out.csv"), new byte[0]);
+
+        assertEquals(8, newFollower(file, dir).update());
+        assertEquals(8, countLines(dir.resolve("in.csv")));
+        assertEquals(8, countLines(dir.resolve("out.csv")));
+    }
+
+    @Test
+    public void addsTheStateColumns(@TempDir Path dir) throws IOException {
+        File file = dir.resolve("hands.txt").toFile();
+        Files.write(file.toPath(), HandParserTest.TEN_MAX_HAND.getBytes(StandardCharsets.UTF_8));
+        String in = dir.resolve("in.csv").toString();
+        String out = dir.resolve("out.csv").toString();
+        assertEquals(4, new HandFollower(file, PLAYERS, true, in, out).update());
+        String[] cells = Files.readAllLines(dir.resolve("in.csv")).get(0).split(",");
+        assertEquals(Dataset.INPUTS + HandParser.COLUMNS.length, cells.length);
+        assertEquals(7950 / 100.0, Double.parseDouble(cells[Dataset.INPUTS + 1]));
+
+        // The .csv files have the state columns, so following without them starts again
+        assertEquals(4, new HandFollower(file, PLAYERS, false, in, out).update());
+        assertEquals(Dataset.INPUTS, Files.readAllLines(dir.resolve("in.csv")).get(0).split(",").length);
+        assertEquals(4, countLines(dir.resolve("in.csv")));
+    }
+
+    /**
+     * Helper function to make a follower that writes in.csv and out.csv in a folder
+     * @param file the hand history file
+     * @param dir the folder
+     * @return the follower
+     */
+    private static HandFollower newFollower(File file, Path dir) {
+        return new HandFollower(file, PLAYERS, false, dir.resolve("in.csv").toString(), dir.resolve("out.csv").toString());
+    }
+
+    /**
+     * Helper function to add a copy of the test hand with another number to the end of the hand history file
+     * @param file the hand history file
+     * @param id the number of the new hand
+     * @throws IOException if the file cannot be written
+     */
+    private static void appendHand(File file, long id) throws IOException {
+        String hand = HandParserTest.TEN_MAX_HAND.replace("#200001", "#" + id);
+        Files.write(file.toPath(), hand.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Helper function to count the lines of a file
+     * @param file the file
+     * @return the number of lines
+     * @throws IOException if the file cannot be read
+     */
+    private static long countLines(Path file) throws IOException {
+        return Files.readAllLines(file).size();
+    }
+}
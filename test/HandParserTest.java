@@ -0,0 +1,114 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Scanner;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests of HandParser on hands from a 10-max table, where the last seat is "Seat 10:"
+ */
+public class HandParserTest {
+    private static final String[] PLAYERS = {"Ten", "One"};
+
+    static final String TEN_MAX_HAND = String.join("\n",
+            "PokerStars Hand #200001: Hold'em No Limit (50/100) - 2019/07/12 08:30:01 ET",
+            "Table 'Test' 10-max (Play Money) Seat #9 is the button",
+            "Seat 1: One (10000 in chips)",
+            "Seat 2: Two (10000 in chips)",
+            "Seat 3: Three (10000 in chips)",
+            "Seat 4: Four (10000 in chips)",
+            "Seat 5: Five (10000 in chips)",
+            "Seat 6: Six (10000 in chips)",
+            "Seat 7: Seven (10000 in chips)",
+            "Seat 8: Eight (10000 in chips)",
+            "Seat 9: Nine (10000 in chips)",
+            "Seat 10: Ten (8000 in chips)",
+            "Ten: posts small blind 50",
+            "One: posts big blind 100",
+            "*** HOLE CARDS ***",
+            "Dealt to One [2c 3d]",
+            "Dealt to Ten [As Kh]",
+            "Two: folds",
+            "Three: folds",
+            "Four: folds",
+            "Five: folds",
+            "Six: folds",
+            "Seven: folds",
+            "Eight: folds",
+            "Nine: folds",
+            "Ten: raises 200 to 300",
+            "One: calls 200",
+            "*** FLOP *** [Td 9c 8h]",
+            "Ten: bets 400",
+            "One: folds",
+            "Uncalled bet (400) returned to Ten",
+            "Ten collected 600 from pot",
+            "*** SUMMARY ***",
+            "Total pot 600 | Rake 0",
+            "",
+            "");
+
+    @Test
+    public void readsSeatTenWithScanner() {
+        Dataset data = new Dataset();
+        HandParser.addColumns(data);
+        HandParser.parse(new Scanner(TEN_MAX_HAND), PLAYERS, data);
+        checkRows(data);
+    }
+
+    @Test
+    public void readsSeatTenFromMappedFile(@TempDir Path dir) throws IOException {
+        File file = dir.resolve("ten_max.txt").toFile();
+        Files.write(file.toPath(), TEN_MAX_HAND.getBytes(StandardCharsets.UTF_8));
+        Dataset data = new Dataset();
+        HandParser.addColumns(data);
+        HandReader.parse(file, PLAYERS, data);
+        checkRows(data);
+    }
+
+    @Test
+    public void skipsSeatOutOfRange() {
+        String hand = TEN_MAX_HAND.replace("Seat 10: Ten (8000 in chips)", "Seat 11: Ten (8000 in chips)");
+        Dataset data = new Dataset();
+        HandParser.parse(new Scanner(hand), PLAYERS, data);
+        assertEquals(2, data.size());
+        for(int row = 0; row < data.size(); row++) {
+            assertEquals(1.0, data.getScalar(row, 0));
+        }
+    }
+
+    @Test
+    public void readsSeatNumbers() {
+        assertEquals(1, HandParser.readSeat("Seat 1: One (10000 in chips)", 6));
+        assertEquals(10, HandParser.readSeat("Seat 10: Ten (10000 in chips)", 7));
+        assertEquals(-1, HandParser.readSeat("Seat 0: Zero (10000 in chips)", 6));
+        assertEquals(-1, HandParser.readSeat("Seat 11: Eleven (10000 in chips)", 7));
+        assertEquals(-1, HandParser.readSeat("Seat 99999999999: Big (10000 in chips)", 16));
+        assertEquals(-1, HandParser.readSeat("Seat X: Bad (10000 in chips)", 6));
+    }
+
+    /**
+     * Helper function to check the rows of the hand: Ten raises and bets from seat 10, and One calls and folds from seat 1
+     * @param data the rows
+     */
+    static void checkRows(Dataset data) {
+        assertEquals(4, data.size());
+        int[] seats = {10, 1, 10, 1};
+        int[] actions = {3, 2, 3, 0};
+        for(int row = 0; row < data.size(); row++) {
+            assertEquals(seats[row], data.getScalar(row, 0));
+            assertEquals(actions[row], data.getAction(row));
+        }
+        assertEquals(Cards.getCard('A', 's'), data.getCard(0, 0));
+        assertEquals(Cards.getCard('K', 'h'), data.getCard(0, 1));
+        int stack = data.getColumn("stack");
+        assertEquals(7950 / 100.0, data.getExtra(0, stack));
+        assertEquals(7700 / 100.0, data.getExtra(2, stack));
+    }
+}
@@ -0,0 +1,43 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that the Vector API loop of Network gives the same outputs as the plain loop
+ */
+public class NetworkTest {
+    @Test
+    public void usesTheVectorKernelWhenItIsCompiled() {
+        assertEquals("VectorKernel", Network.getKernel());
+    }
+
+    @Test
+    public void vectorKernelMatchesThePlainLoop() {
+        SplittableRandom random = new SplittableRandom(1);
+        VectorKernel kernel = new VectorKernel();
+        // Sizes of the layers of the notebooks, and sizes that are not a multiple of any vector length
+        for(int n : new int[] {1, 4, 7, 25, 100, 150, 200, 300, 367, 400}) {
+            float[] w = new float[n * 3 + 5];
+            for(int i = 0; i < w.length; i++) {
+                w[i] = (float) random.nextDouble(-1, 1);
+            }
+            float[] expected = new float[n + 3];
+            float[] actual = new float[n + 3];
+            for(int i = 0; i < expected.length; i++) {
+                expected[i] = actual[i] = (float) random.nextDouble(-1, 1);
+            }
+            for(int row = 0; row < 3; row++) {
+                float a = (float) random.nextDouble(-2, 2);
+                int k = row * n + 5;
+                for(int j = 0; j < n; j++) {
+                    expected[3 + j] += a * w[k + j];
+                }
+                kernel.add(a, w, k, actual, 3, n);
+            }
+            assertArrayEquals(expected, actual);
+        }
+    }
+}
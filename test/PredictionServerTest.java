@@ -0,0 +1,101 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that PredictionServer answers every request, even when the network fails, is slow or the server has stopped
+ */
+public class PredictionServerTest {
+    private static final int INPUTS = Dataset.SCALARS + Dataset.CARDS * 52;
+    private static final byte[] HOLE = {0, 13};
+    private static final byte[] BOARD = {};
+
+    /**
+     * A network with one layer of zero weights, whose predict can be made to fail or wait
+     */
+    private static class TestNetwork extends Network {
+        int failures;
+        CountDownLatch release;
+
+        TestNetwork() {
+            super(new int[] {INPUTS, 4}, new float[][] {new float[INPUTS * 4]}, new float[][] {new float[4]}, new byte[] {Network.SOFTMAX});
+        }
+
+        @Override
+        public void predict(float[] inputs, int rows, double[] output) {
+            if(failures > 0) {
+                failures--;
+                throw new IllegalStateException("Broken network");
+            }
+            if(release != null) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+            super.predict(inputs, rows, output);
+        }
+    }
+
+    @Test
+    public void failsTheBatchAndGoesOn() throws Exception {
+        TestNetwork network = new TestNetwork();
+        network.failures = 1;
+        PredictionServer server = new PredictionServer(network, 4, 0, 5000);
+        server.start(0, 1);
+        try {
+            IOException e = assertThrows(IOException.class, () -> server.predict(1, 2, 100, HOLE, BOARD));
+            assertEquals("Broken network", e.getCause().getMessage());
+            double[] output = server.predict(1, 2, 100, HOLE, BOARD);
+            assertNotNull(output);
+            assertEquals(0.25, output[0], 1e-6);
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void timesOutWhenTheNetworkIsSlow() throws Exception {
+        TestNetwork network = new TestNetwork();
+        network.release = new CountDownLatch(1);
+        PredictionServer server = new PredictionServer(network, 4, 0, 100);
+        server.start(0, 1);
+        try {
+            assertNull(server.predict(1, 2, 100, HOLE, BOARD));
+        } finally {
+            network.release.countDown();
+            server.stop();
+        }
+    }
+
+    @Test
+    public void failsRequestsAfterStopping() throws Exception {
+        TestNetwork network = new TestNetwork();
+        PredictionServer server = new PredictionServer(network, 4, 0, 5000);
+        server.start(0, 1);
+        server.stop();
+        // A request queued while the batching thread is stopping may still be predicted, but no request waits for the
+        // timeout, and once the thread has stopped every request fails
+        int failed = 0;
+        for(int i = 0; i < 100; i++) {
+            long start = System.nanoTime();
+            try {
+                assertNotNull(server.predict(1, 2, 100, HOLE, BOARD));
+            } catch (IOException e) {
+                failed++;
+            }
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(4));
+        }
+        assertTrue(failed >= 99);
+        assertThrows(IOException.class, () -> server.predict(1, 2, 100, HOLE, BOARD));
+    }
+}
@@ -0,0 +1,35 @@
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * This class adds a multiple of a row of weights to the outputs of a layer of a Network with the Java Vector API, which
+ * handles as many floats at once as the processor's widest vectors hold (e.g. 16 with AVX-512, 8 with AVX2).
+ *
+ * It is in its own folder because the Vector API is still an incubator module in Java 17: it can only be compiled and
+ * run with --add-modules jdk.incubator.vector. The Gradle build compiles it with that option, and Network uses it when
+ * the JVM is run with it, e.g.
+ *      java --add-modules jdk.incubator.vector -cp build/classes/java/main Network
+ * When the .java files in the main folder are compiled with a bare javac, or the JVM is run without the option,
+ * Network uses its plain loop instead (see Network.java), which gives the same outputs.
+ *
+ * Each output is y + a * w, rounded after the multiplication and after the addition as in the plain loop, rather than
+ * with a fused multiply-add, so the outputs do not depend on which one is used.
+ */
+public class VectorKernel implements Network.Kernel {
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    @Override
+    public void add(float a, float[] w, int k, float[] y, int o, int n) {
+        FloatVector va = FloatVector.broadcast(SPECIES, a);
+        int bound = SPECIES.loopBound(n);
+        int j = 0;
+        for(; j < bound; j += SPECIES.length()) {
+            FloatVector vw = FloatVector.fromArray(SPECIES, w, k + j);
+            FloatVector vy = FloatVector.fromArray(SPECIES, y, o + j);
+            vy.add(va.mul(vw)).intoArray(y, o + j);
+        }
+        for(; j < n; j++) {
+            y[o + j] += a * w[k + j];
+        }
+    }
+}